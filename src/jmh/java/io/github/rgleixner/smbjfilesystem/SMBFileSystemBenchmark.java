@@ -0,0 +1,156 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SMBFileSystemBenchmark {
+
+	private static final int DIRECTORY_ENTRIES = 1000;
+
+	@Param({ "0", "200" })
+	public int rttMicros;
+
+	@Param({ "0" })
+	public int bandwidth;
+
+	@Param({ "1048576" })
+	public int fileSize;
+
+	@Param({ "false" })
+	public boolean serverSideCopy;
+
+	@Param({ "0" })
+	public int contentCacheSize;
+
+	private SMBFileSystemProvider provider;
+
+	private SMBFileSystem fileSystem;
+
+	private SMBPath file;
+
+	private SMBPath directory;
+
+	private SMBPath copyTarget;
+
+	private SMBPath writeTarget;
+
+	private byte[] data;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		SMBFileSystemProvider.setClientWrapperFactory(
+				env -> SimulatedSMBClientWrapper.create(InMemorySMBClientWrapper.create(env), env));
+		System.setProperty(SMBNetworkSimulator.PROPERTY_RTT, String.valueOf(this.rttMicros));
+		System.setProperty(SMBNetworkSimulator.PROPERTY_BANDWIDTH, String.valueOf(this.bandwidth));
+		System.setProperty(InMemorySMBClientWrapper.PROPERTY_SERVER_SIDE_COPY, String.valueOf(this.serverSideCopy));
+		System.setProperty(SMBFileSystemProvider.PROPERTY_CONTENT_CACHE_SIZE, String.valueOf(this.contentCacheSize));
+
+		this.provider = new SMBFileSystemProvider();
+		SMBPath root = (SMBPath) this.provider.getPath(URI.create("smb://benchmark/share/"));
+		this.fileSystem = root.getFileSystem();
+		this.file = (SMBPath) root.resolve("data.bin");
+		this.directory = (SMBPath) root.resolve("listing");
+		this.copyTarget = (SMBPath) root.resolve("copy.bin");
+		this.writeTarget = (SMBPath) root.resolve("write.bin");
+
+		this.data = new byte[this.fileSize];
+		ThreadLocalRandom.current().nextBytes(this.data);
+		try (SeekableByteChannel channel = this.provider.newByteChannel(this.file,
+				EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE))) {
+			channel.write(ByteBuffer.wrap(this.data));
+		}
+		this.provider.createDirectory(this.directory);
+		for (int i = 0; i < DIRECTORY_ENTRIES; i++) {
+			this.provider.newByteChannel(this.directory.resolve("entry-" + i + ".txt"),
+					EnumSet.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)).close();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.fileSystem.close();
+	}
+
+	@Benchmark
+	public BasicFileAttributes readAttributes() throws IOException {
+		return this.provider.readAttributes(this.file, BasicFileAttributes.class);
+	}
+
+	@Benchmark
+	public boolean exists() {
+		return Files.exists(this.file);
+	}
+
+	@Benchmark
+	public void listDirectory(Blackhole blackhole) throws IOException {
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+			for (Path entry : stream) {
+				blackhole.consume(entry);
+			}
+		}
+	}
+
+	@Benchmark
+	public long readChannel() throws IOException {
+		long total = 0;
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		try (SeekableByteChannel channel = this.provider.newByteChannel(this.file,
+				EnumSet.of(StandardOpenOption.READ))) {
+			int read;
+			while ((read = channel.read(buffer)) != -1) {
+				total += read;
+				buffer.clear();
+			}
+		}
+		return total;
+	}
+
+	@Benchmark
+	public long writeChannel() throws IOException {
+		try (SeekableByteChannel channel = this.provider.newByteChannel(this.writeTarget,
+				EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+			for (int offset = 0; offset < this.data.length; offset += 64 * 1024) {
+				channel.write(ByteBuffer.wrap(this.data, offset, Math.min(64 * 1024, this.data.length - offset)));
+			}
+			return channel.size();
+		}
+	}
+
+	@Benchmark
+	public void copy() throws IOException {
+		this.provider.copy(this.file, this.copyTarget, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+}
@@ -0,0 +1,85 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SMBPathBenchmark {
+
+	private SMBPath directory;
+
+	private SMBPath file;
+
+	private SMBPath child;
+
+	@Setup
+	public void setup() {
+		this.directory = (SMBPath) new SMBFileSystemProvider()
+				.getPath(URI.create("smb://host/share/projects/2024/reports/quarterly/"));
+		this.file = (SMBPath) this.directory.resolve("summary.csv");
+		this.child = (SMBPath) this.directory.getFileSystem().getPath("archive", "summary.csv");
+	}
+
+	@Benchmark
+	public SMBPath parse() {
+		return (SMBPath) this.directory.getFileSystem().getPath("/projects/2024/reports/quarterly/summary.csv");
+	}
+
+	@Benchmark
+	public String resolveToString() {
+		return this.directory.resolve(this.child).toString();
+	}
+
+	@Benchmark
+	public Path getParent() {
+		return this.file.getParent();
+	}
+
+	@Benchmark
+	public Path getFileName() {
+		return this.file.getFileName();
+	}
+
+	@Benchmark
+	public String toStringCached() {
+		return this.file.toString();
+	}
+
+	@Benchmark
+	public int hashCodeCached() {
+		return this.file.hashCode();
+	}
+
+	@Benchmark
+	public int compareTo() {
+		return this.file.compareTo(this.directory);
+	}
+
+	@Benchmark
+	public boolean startsWith() {
+		return this.file.startsWith(this.directory);
+	}
+
+	@Benchmark
+	public URI toUri() {
+		return this.file.toUri();
+	}
+
+}
@@ -0,0 +1,128 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.nio.file.ClosedFileSystemException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+// smbj futures offer no completion callbacks, so a fixed number of threads waits on them. Each wait is bounded and
+// futures that are still pending go back to the end of the queue, long-lived ones (change notifications) therefore
+// take turns instead of pinning a thread each.
+final class SMBAsyncCompleter {
+
+	private static final long WAIT_SLICE_MILLIS = 250;
+
+	private final class Task<V> implements Runnable {
+
+		private final Callable<V> call;
+
+		private final Future<V> future;
+
+		private final BiConsumer<? super V, ? super Throwable> callback;
+
+		Task(Callable<V> call, Future<V> future, BiConsumer<? super V, ? super Throwable> callback) {
+			this.call = call;
+			this.future = future;
+			this.callback = callback;
+		}
+
+		@Override
+		public void run() {
+			V value;
+			try {
+				value = this.future == null ? this.call.call()
+						: this.future.get(WAIT_SLICE_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				submit(this);
+				return;
+			} catch (ExecutionException e) {
+				if (this.future != null && !this.future.isDone() && !isClosed()) {
+					submit(this);
+				} else {
+					fail(e.getCause());
+				}
+				return;
+			} catch (InterruptedException e) {
+				fail(new ClosedFileSystemException());
+				return;
+			} catch (CancellationException e) {
+				fail(e);
+				return;
+			} catch (Exception e) {
+				fail(e);
+				return;
+			}
+			notify(value, null);
+		}
+
+		void fail(Throwable error) {
+			notify(null, isClosed() ? new ClosedFileSystemException() : error);
+		}
+
+		private void notify(V value, Throwable error) {
+			try {
+				this.callback.accept(value, error);
+			} catch (RuntimeException e) {
+				SMBFileSystem.LOGGER.error("async completion callback failed", e);
+			}
+		}
+
+	}
+
+	private final ThreadPoolExecutor executor;
+
+	SMBAsyncCompleter(String name, int threads) {
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	<V> void execute(Callable<V> call, BiConsumer<? super V, ? super Throwable> callback) {
+		submit(new Task<>(call, null, callback));
+	}
+
+	<V> void whenDone(Future<V> future, BiConsumer<? super V, ? super Throwable> callback) {
+		Task<V> task = new Task<>(null, future, callback);
+		if (future.isDone()) {
+			task.run();
+		} else {
+			submit(task);
+		}
+	}
+
+	int getPendingCount() {
+		return this.executor.getQueue().size() + this.executor.getActiveCount();
+	}
+
+	void close() {
+		for (Runnable task : this.executor.shutdownNow()) {
+			((Task<?>) task).fail(new ClosedFileSystemException());
+		}
+	}
+
+	private boolean isClosed() {
+		return this.executor.isShutdown();
+	}
+
+	private void submit(Task<?> task) {
+		try {
+			this.executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			task.fail(new ClosedFileSystemException());
+		}
+	}
+
+}
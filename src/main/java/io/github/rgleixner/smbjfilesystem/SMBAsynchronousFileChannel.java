@@ -0,0 +1,275 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.hierynomus.msfscc.fileinformation.FileStandardInformation;
+import com.hierynomus.smbj.common.SMBRuntimeException;
+
+public final class SMBAsynchronousFileChannel extends AsynchronousFileChannel {
+
+	private final SMBPath path;
+
+	private final SMBFileHandle handle;
+
+	private final ExecutorService executor;
+
+	private final boolean readable;
+
+	private final boolean writable;
+
+	private final int readSize;
+
+	private final int writeSize;
+
+	private volatile boolean open = true;
+
+	private volatile boolean modified = false;
+
+	SMBAsynchronousFileChannel(SMBPath path, Set<? extends OpenOption> options, ExecutorService executor)
+			throws IOException {
+		if (options.contains(StandardOpenOption.APPEND)) {
+			throw new UnsupportedOperationException("APPEND is not supported by AsynchronousFileChannel.");
+		}
+		this.path = path;
+		this.handle = new SMBFileHandle(path, options);
+		this.executor = executor != null ? executor : path.getFileSystem().getExecutor();
+		this.writable = options.contains(StandardOpenOption.WRITE);
+		this.readable = options.contains(StandardOpenOption.READ) || !this.writable;
+		this.readSize = SMBReadAhead.getReadSize(this.handle.get());
+		this.writeSize = SMBWriteBehind.getWriteSize(this.handle.get());
+
+		if (this.writable && options.contains(StandardOpenOption.TRUNCATE_EXISTING)) {
+			this.handle.get().setLength(0);
+			path.getFileSystem().invalidateAttributes(path);
+		}
+	}
+
+	@Override
+	public long size() throws IOException {
+		ensureOpen();
+		return this.handle.run(file -> file.getFileInformation(FileStandardInformation.class).getEndOfFile());
+	}
+
+	@Override
+	public AsynchronousFileChannel truncate(long size) throws IOException {
+		ensureOpen();
+		if (!this.writable) {
+			throw new NonWritableChannelException();
+		}
+		if (size < 0) {
+			throw new IllegalArgumentException("The size must not be negative.");
+		}
+		if (size < size()) {
+			this.handle.run(file -> {
+				file.setLength(size);
+				return null;
+			});
+			this.path.getFileSystem().invalidateAttributes(this.path);
+		}
+		return this;
+	}
+
+	@Override
+	public void force(boolean metaData) throws IOException {
+		ensureOpen();
+		this.handle.run(file -> {
+			file.flush();
+			return null;
+		});
+		if (this.modified) {
+			this.path.getFileSystem().invalidateAttributes(this.path);
+		}
+	}
+
+	@Override
+	public <A> void lock(long position, long size, boolean shared, A attachment,
+			CompletionHandler<FileLock, ? super A> handler) {
+		throw new UnsupportedOperationException("File locks are not supported by SMBAsynchronousFileChannel.");
+	}
+
+	@Override
+	public Future<FileLock> lock(long position, long size, boolean shared) {
+		throw new UnsupportedOperationException("File locks are not supported by SMBAsynchronousFileChannel.");
+	}
+
+	@Override
+	public FileLock tryLock(long position, long size, boolean shared) {
+		throw new UnsupportedOperationException("File locks are not supported by SMBAsynchronousFileChannel.");
+	}
+
+	@Override
+	public <A> void read(ByteBuffer dst, long position, A attachment,
+			CompletionHandler<Integer, ? super A> handler) {
+		complete(startRead(dst, position), attachment, handler);
+	}
+
+	@Override
+	public Future<Integer> read(ByteBuffer dst, long position) {
+		return startRead(dst, position);
+	}
+
+	@Override
+	public <A> void write(ByteBuffer src, long position, A attachment,
+			CompletionHandler<Integer, ? super A> handler) {
+		complete(startWrite(src, position), attachment, handler);
+	}
+
+	@Override
+	public Future<Integer> write(ByteBuffer src, long position) {
+		return startWrite(src, position);
+	}
+
+	@Override
+	public boolean isOpen() {
+		return this.open;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.open) {
+			this.open = false;
+			this.handle.close();
+			if (this.modified) {
+				this.path.getFileSystem().invalidateAttributes(this.path);
+			}
+		}
+	}
+
+	// smbj only exposes blocking reads, they run on the bounded completer pool instead of the channel executor
+	private CompletableFuture<Integer> startRead(ByteBuffer dst, long position) {
+		if (!this.readable) {
+			throw new NonReadableChannelException();
+		}
+		if (dst.isReadOnly()) {
+			throw new IllegalArgumentException("The destination buffer is read-only.");
+		}
+		if (position < 0) {
+			throw new IllegalArgumentException("The position must not be negative.");
+		}
+		CompletableFuture<Integer> result = new CompletableFuture<>();
+		if (!this.open) {
+			result.completeExceptionally(new ClosedChannelException());
+			return result;
+		}
+		this.path.getFileSystem().getAsyncCompleter().execute(
+				() -> SMBFileChannel.readAt(this.path.getFileSystem(), this.handle, dst, position, this.readSize),
+				(read, error) -> dispatch(result, read, error));
+		return result;
+	}
+
+	private CompletableFuture<Integer> startWrite(ByteBuffer src, long position) {
+		if (!this.writable) {
+			throw new NonWritableChannelException();
+		}
+		if (position < 0) {
+			throw new IllegalArgumentException("The position must not be negative.");
+		}
+		CompletableFuture<Integer> result = new CompletableFuture<>();
+		if (!this.open) {
+			result.completeExceptionally(new ClosedChannelException());
+			return result;
+		}
+
+		int length = Math.min(src.remaining(), this.writeSize);
+		byte[] data = new byte[length];
+		src.duplicate().get(data);
+		long start = System.nanoTime();
+		Future<Long> written;
+		try {
+			written = this.handle.get().writeAsync(data, position, 0, length);
+		} catch (RuntimeException e) {
+			written = CompletableFuture.failedFuture(e);
+		}
+		this.path.getFileSystem().getAsyncCompleter().whenDone(written,
+				(count, error) -> completeWrite(result, src, data, position, start, count, error));
+		return result;
+	}
+
+	private void completeWrite(CompletableFuture<Integer> result, ByteBuffer src, byte[] data, long position,
+			long start, Long count, Throwable error) {
+		if (error != null && this.open && SMBFileHandle.isReconnectable(error)) {
+			// the retry reopens the handle, it blocks one completer thread until the handle is back
+			this.path.getFileSystem().getAsyncCompleter().execute(
+					() -> written(src, start, this.handle.run(file -> file.write(data, position, 0, data.length))),
+					(retried, retryError) -> dispatch(result, retried, retryError));
+			return;
+		}
+		if (error != null) {
+			this.path.getFileSystem().recordTransfer("write", start, 0, false);
+			dispatch(result, null, error);
+			return;
+		}
+		dispatch(result, written(src, start, count), null);
+	}
+
+	private int written(ByteBuffer src, long start, long count) {
+		this.path.getFileSystem().recordTransfer("write", start, count, true);
+		src.position(src.position() + (int) count);
+		if (!this.modified) {
+			this.modified = true;
+			this.path.getFileSystem().invalidateAttributes(this.path);
+		}
+		return (int) count;
+	}
+
+	// completions are handed to the channel executor so that handlers never run on a completer thread
+	private <V> void dispatch(CompletableFuture<V> future, V value, Throwable error) {
+		try {
+			this.executor.execute(() -> settle(future, value, error));
+		} catch (RejectedExecutionException e) {
+			settle(future, value, error);
+		}
+	}
+
+	private <V> void settle(CompletableFuture<V> future, V value, Throwable error) {
+		if (error == null) {
+			future.complete(value);
+		} else {
+			future.completeExceptionally(translate(error));
+		}
+	}
+
+	private Throwable translate(Throwable e) {
+		if (!this.open) {
+			return new AsynchronousCloseException();
+		}
+		if (e instanceof SMBRuntimeException) {
+			return SMBExceptionUtil.translateToIOException((SMBRuntimeException) e, this.path);
+		}
+		return e;
+	}
+
+	private static <V, A> void complete(CompletableFuture<V> future, A attachment,
+			CompletionHandler<V, ? super A> handler) {
+		future.whenComplete((result, error) -> {
+			if (error == null) {
+				handler.completed(result, attachment);
+			} else {
+				handler.failed(error instanceof CompletionException ? error.getCause() : error, attachment);
+			}
+		});
+	}
+
+	private void ensureOpen() throws IOException {
+		if (!this.open) {
+			throw new ClosedChannelException();
+		}
+	}
+
+}
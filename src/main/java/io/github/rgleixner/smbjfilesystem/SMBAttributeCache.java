@@ -0,0 +1,100 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class SMBAttributeCache {
+
+	private static final class Entry {
+
+		private final SMBFileAttributes attributes;
+
+		private final long expires;
+
+		Entry(SMBFileAttributes attributes, long expires) {
+			this.attributes = attributes;
+			this.expires = expires;
+		}
+
+	}
+
+	private final long ttlNanos;
+
+	private final LinkedHashMap<String, Entry> entries;
+
+	private final SMBInvalidations invalidations = new SMBInvalidations();
+
+	SMBAttributeCache(int maxSize, long ttlMillis) {
+		this.ttlNanos = ttlMillis * 1_000_000L;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	synchronized SMBFileAttributes get(SMBPath path) {
+		String key = key(path);
+		Entry entry = this.entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.expires - System.nanoTime() <= 0) {
+			this.entries.remove(key);
+			return null;
+		}
+		return entry.attributes;
+	}
+
+	synchronized long getGeneration() {
+		return this.invalidations.getGeneration();
+	}
+
+	synchronized void put(SMBPath path, SMBFileAttributes attributes, long generation) {
+		String key = key(path);
+		if (!this.invalidations.isCurrent(key, generation)) {
+			return;
+		}
+		this.entries.put(key, new Entry(attributes, System.nanoTime() + this.ttlNanos));
+	}
+
+	synchronized void invalidate(SMBPath path) {
+		String key = key(path);
+		String parentKey = SMBInvalidations.parentKey(key);
+		this.invalidations.invalidate(key);
+		this.invalidations.invalidate(parentKey);
+		this.entries.remove(key);
+		this.entries.remove(parentKey);
+	}
+
+	synchronized void invalidateTree(SMBPath path) {
+		String key = key(path);
+		String prefix = key.equals(SMBFileSystem.PATH_SEPARATOR) ? key : key + SMBFileSystem.PATH_SEPARATOR;
+		String parentKey = SMBInvalidations.parentKey(key);
+		this.invalidations.invalidateTree(key);
+		this.invalidations.invalidate(parentKey);
+		this.entries.remove(parentKey);
+		Iterator<String> keys = this.entries.keySet().iterator();
+		while (keys.hasNext()) {
+			String candidate = keys.next();
+			if (candidate.equals(key) || candidate.startsWith(prefix)) {
+				keys.remove();
+			}
+		}
+	}
+
+	private static String key(SMBPath path) {
+		String key = path.toAbsolutePath().normalize().toString();
+		if (key.isEmpty()) {
+			return SMBFileSystem.PATH_SEPARATOR;
+		}
+		return key.length() > 1 && key.endsWith(SMBFileSystem.PATH_SEPARATOR) ? key.substring(0, key.length() - 1)
+				: key;
+	}
+
+}
@@ -0,0 +1,76 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+final class SMBBatch {
+
+	@FunctionalInterface
+	interface Operation<T> {
+
+		T apply(SMBPath path) throws IOException;
+
+	}
+
+	private final ExecutorService executor;
+
+	private final int concurrency;
+
+	SMBBatch(ExecutorService executor, int concurrency) {
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("The concurrency must be at least 1.");
+		}
+		this.executor = executor;
+		this.concurrency = concurrency;
+	}
+
+	<T> List<SMBBatchResult<T>> run(Collection<? extends Path> paths, Operation<T> operation)
+			throws InterruptedIOException {
+		List<Path> input = new ArrayList<>(paths);
+		List<SMBBatchResult<T>> results = new ArrayList<>(Collections.nCopies(input.size(), null));
+		Semaphore permits = new Semaphore(this.concurrency);
+
+		int submitted = 0;
+		try {
+			for (; submitted < input.size(); submitted++) {
+				int index = submitted;
+				Path path = input.get(index);
+				permits.acquire();
+				try {
+					this.executor.execute(() -> {
+						try {
+							results.set(index,
+									new SMBBatchResult<>(path, operation.apply(SMBPath.fromPath(path)), null));
+						} catch (IOException e) {
+							results.set(index, new SMBBatchResult<>(path, null, e));
+						} catch (RuntimeException e) {
+							results.set(index, new SMBBatchResult<>(path, null, new IOException(e)));
+						} finally {
+							permits.release();
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					permits.release();
+					permits.acquireUninterruptibly(this.concurrency);
+					throw new ClosedFileSystemException();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			permits.acquireUninterruptibly(this.concurrency);
+			throw new InterruptedIOException("The batch was interrupted after " + submitted + " paths.");
+		}
+		permits.acquireUninterruptibly(this.concurrency);
+		return List.copyOf(results);
+	}
+
+}
@@ -0,0 +1,41 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public final class SMBBatchResult<T> {
+
+	private final Path path;
+
+	private final T value;
+
+	private final IOException error;
+
+	SMBBatchResult(Path path, T value, IOException error) {
+		this.path = path;
+		this.value = value;
+		this.error = error;
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public T getValue() {
+		return value;
+	}
+
+	public IOException getError() {
+		return error;
+	}
+
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+	@Override
+	public String toString() {
+		return "SMBBatchResult [path=" + path + ", value=" + value + ", error=" + error + "]";
+	}
+
+}
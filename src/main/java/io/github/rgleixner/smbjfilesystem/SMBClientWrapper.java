@@ -3,11 +3,12 @@ package io.github.rgleixner.smbjfilesystem;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import com.hierynomus.smbj.SMBClient;
 import com.hierynomus.smbj.auth.AuthenticationContext;
-import com.hierynomus.smbj.connection.Connection;
-import com.hierynomus.smbj.session.Session;
 import com.hierynomus.smbj.share.DiskShare;
 
 public interface SMBClientWrapper extends Closeable {
@@ -23,9 +24,14 @@ public interface SMBClientWrapper extends Closeable {
 
 		public final class SMBShareWrapperImpl implements SMBShareWrapper {
 
-			private DiskShare diskShare;
+			private final PooledShare pooledShare;
 
-			SMBShareWrapperImpl(DiskShare diskShare) {
+			private final DiskShare diskShare;
+
+			private boolean released = false;
+
+			SMBShareWrapperImpl(PooledShare pooledShare, DiskShare diskShare) {
+				this.pooledShare = pooledShare;
 				this.diskShare = diskShare;
 			}
 
@@ -35,46 +41,129 @@ public interface SMBClientWrapper extends Closeable {
 			}
 
 			@Override
-			public void close() throws IOException {
-				//
+			public synchronized void close() throws IOException {
+				if (!released) {
+					released = true;
+					pooledShare.inFlight.decrementAndGet();
+				}
 			}
 
 		}
 
-		private String host;
-		private int port;
-		private String shareName;
-		private SMBClient client;
-		private AuthenticationContext authenticationContext;
+		private final class PooledShare {
+
+			private final int slot;
+
+			private final AtomicInteger inFlight = new AtomicInteger();
+
+			private SMBSessionRegistry.Lease lease;
+
+			private volatile DiskShare share;
+
+			PooledShare(int slot) {
+				this.slot = slot;
+			}
 
-		private volatile DiskShare share;
+			boolean isConnected() {
+				DiskShare current = share;
+				return current != null && current.isConnected();
+			}
+
+			DiskShare connect() throws IOException {
+				if (!isConnected()) {
+					synchronized (this) {
+						if (!isConnected()) {
+							if (lease == null) {
+								lease = registry.acquire(List.of(clientKey, slot), clientSupplier, host, port,
+										authenticationContext);
+							}
+							share = lease.connectShare(shareName);
+						}
+					}
+				}
+				return share;
+			}
+
+			synchronized void close() {
+				share = null;
+				if (lease != null) {
+					lease.close();
+					lease = null;
+				}
+			}
+
+		}
+
+		private final String host;
+		private final int port;
+		private final String shareName;
+		private final Supplier<SMBClient> clientSupplier;
+		private final AuthenticationContext authenticationContext;
+		private final SMBSessionRegistry registry;
+		private final Object clientKey;
+
+		private final PooledShare[] pool;
+
+		private final AtomicInteger nextIndex = new AtomicInteger();
 
 		public SMBClientWrapperImpl(URI uri, SMBClient client, AuthenticationContext authenticationContext) {
+			this(uri, () -> client, authenticationContext, 1);
+		}
+
+		public SMBClientWrapperImpl(URI uri, Supplier<SMBClient> clientSupplier,
+				AuthenticationContext authenticationContext, int poolSize) {
+			this(uri, clientSupplier, authenticationContext, poolSize, null);
+		}
+
+		public SMBClientWrapperImpl(URI uri, Supplier<SMBClient> clientSupplier,
+				AuthenticationContext authenticationContext, int poolSize, Object sharedClientKey) {
+			if (poolSize < 1) {
+				throw new IllegalArgumentException("The pool size must be at least 1.");
+			}
 			this.host = uri.getHost();
 			this.port = uri.getPort();
 			this.shareName = uri.getPath().substring(1);
-			this.client = client;
+			this.clientSupplier = clientSupplier;
 			this.authenticationContext = authenticationContext;
+			this.registry = sharedClientKey != null ? SMBSessionRegistry.SHARED : new SMBSessionRegistry();
+			this.clientKey = sharedClientKey != null ? sharedClientKey : this;
+			this.pool = new PooledShare[poolSize];
+			for (int i = 0; i < poolSize; i++) {
+				this.pool[i] = new PooledShare(i);
+			}
 		}
 
 		@Override
 		public SMBShareWrapper getShare() throws IOException {
-			if (share == null || !share.isConnected()) {
-				synchronized (this) {
-					if (share == null || !share.isConnected()) {
-						client.close();
-						Connection connection = port == -1 ? client.connect(host) : client.connect(host, port);
-						Session session = connection.authenticate(authenticationContext);
-						share = (DiskShare) session.connectShare(shareName);
-					}
+			PooledShare pooledShare = select();
+			pooledShare.inFlight.incrementAndGet();
+			try {
+				return new SMBShareWrapperImpl(pooledShare, pooledShare.connect());
+			} catch (IOException | RuntimeException e) {
+				pooledShare.inFlight.decrementAndGet();
+				throw e;
+			}
+		}
+
+		private PooledShare select() {
+			int start = Math.floorMod(nextIndex.getAndIncrement(), pool.length);
+			PooledShare selected = null;
+			for (int i = 0; i < pool.length; i++) {
+				PooledShare candidate = pool[(start + i) % pool.length];
+				if (selected == null || candidate.inFlight.get() < selected.inFlight.get()
+						|| (candidate.inFlight.get() == selected.inFlight.get() && candidate.isConnected()
+								&& !selected.isConnected())) {
+					selected = candidate;
 				}
 			}
-			return new SMBShareWrapperImpl(share);
+			return selected;
 		}
 
 		@Override
 		public void close() {
-			client.close();
+			for (PooledShare pooledShare : pool) {
+				pooledShare.close();
+			}
 		}
 
 	}
@@ -0,0 +1,170 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class SMBContentCache {
+
+	private static final class Entry {
+
+		private final long lastWriteTime;
+
+		private final long changeTime;
+
+		private final byte[] content;
+
+		Entry(long lastWriteTime, long changeTime, byte[] content) {
+			this.lastWriteTime = lastWriteTime;
+			this.changeTime = changeTime;
+			this.content = content;
+		}
+
+		boolean matches(long size, long lastWriteTime, long changeTime) {
+			return this.content.length == size && this.lastWriteTime == lastWriteTime
+					&& this.changeTime == changeTime;
+		}
+
+	}
+
+	final class Fill {
+
+		private final SMBPath path;
+
+		private final long lastWriteTime;
+
+		private final long changeTime;
+
+		private final long generation;
+
+		private final byte[] content;
+
+		private int length = 0;
+
+		Fill(SMBPath path, int size, long lastWriteTime, long changeTime, long generation) {
+			this.path = path;
+			this.lastWriteTime = lastWriteTime;
+			this.changeTime = changeTime;
+			this.generation = generation;
+			this.content = new byte[size];
+		}
+
+		boolean append(ByteBuffer data, long position) {
+			if (position != this.length || data.remaining() > this.content.length - this.length) {
+				return false;
+			}
+			int count = data.remaining();
+			data.get(this.content, this.length, count);
+			this.length += count;
+			if (this.length == this.content.length) {
+				put(this.path, this.lastWriteTime, this.changeTime, this.content, this.generation);
+			}
+			return true;
+		}
+
+		boolean isComplete() {
+			return this.length == this.content.length;
+		}
+
+	}
+
+	private final long maxSize;
+
+	private final int maxEntrySize;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size = 0;
+
+	private final SMBInvalidations invalidations = new SMBInvalidations();
+
+	SMBContentCache(long maxSize, int maxEntrySize) {
+		this.maxSize = maxSize;
+		this.maxEntrySize = (int) Math.min(maxEntrySize, maxSize);
+	}
+
+	synchronized long getGeneration() {
+		return this.invalidations.getGeneration();
+	}
+
+	synchronized byte[] get(SMBPath path, long size, long lastWriteTime, long changeTime) {
+		String key = key(path);
+		Entry entry = this.entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (!entry.matches(size, lastWriteTime, changeTime)) {
+			remove(key);
+			return null;
+		}
+		return entry.content;
+	}
+
+	boolean accepts(long size) {
+		return size <= this.maxEntrySize;
+	}
+
+	Fill fill(SMBPath path, long size, long lastWriteTime, long changeTime, long generation) {
+		if (!accepts(size)) {
+			return null;
+		}
+		return new Fill(path, (int) size, lastWriteTime, changeTime, generation);
+	}
+
+	synchronized void put(SMBPath path, long lastWriteTime, long changeTime, byte[] content, long generation) {
+		String key = key(path);
+		if (!this.invalidations.isCurrent(key, generation) || content.length > this.maxEntrySize) {
+			return;
+		}
+		remove(key);
+		this.entries.put(key, new Entry(lastWriteTime, changeTime, content));
+		this.size += content.length;
+		Iterator<Entry> eldest = this.entries.values().iterator();
+		while (this.size > this.maxSize && eldest.hasNext()) {
+			this.size -= eldest.next().content.length;
+			eldest.remove();
+		}
+	}
+
+	synchronized void invalidate(SMBPath path) {
+		String key = key(path);
+		this.invalidations.invalidate(key);
+		remove(key);
+	}
+
+	synchronized void invalidateTree(SMBPath path) {
+		String key = key(path);
+		this.invalidations.invalidateTree(key);
+		String prefix = key.equals(SMBFileSystem.PATH_SEPARATOR) ? key : key + SMBFileSystem.PATH_SEPARATOR;
+		Iterator<Map.Entry<String, Entry>> entries = this.entries.entrySet().iterator();
+		while (entries.hasNext()) {
+			Map.Entry<String, Entry> candidate = entries.next();
+			if (candidate.getKey().equals(key) || candidate.getKey().startsWith(prefix)) {
+				this.size -= candidate.getValue().content.length;
+				entries.remove();
+			}
+		}
+	}
+
+	synchronized long getSize() {
+		return this.size;
+	}
+
+	private void remove(String key) {
+		Entry entry = this.entries.remove(key);
+		if (entry != null) {
+			this.size -= entry.content.length;
+		}
+	}
+
+	private static String key(SMBPath path) {
+		String key = path.toAbsolutePath().normalize().toString();
+		if (key.isEmpty()) {
+			return SMBFileSystem.PATH_SEPARATOR;
+		}
+		return key.length() > 1 && key.endsWith(SMBFileSystem.PATH_SEPARATOR) ? key.substring(0, key.length() - 1)
+				: key;
+	}
+
+}
@@ -0,0 +1,33 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.nio.file.CopyOption;
+import java.util.stream.Stream;
+
+import com.hierynomus.smbj.ProgressListener;
+
+public final class SMBCopyProgress implements CopyOption {
+
+	private final ProgressListener listener;
+
+	public SMBCopyProgress(ProgressListener listener) {
+		if (listener == null) {
+			throw new IllegalArgumentException("The progress listener must not be null.");
+		}
+		this.listener = listener;
+	}
+
+	public ProgressListener getListener() {
+		return listener;
+	}
+
+	static ProgressListener getListener(CopyOption... options) {
+		return Stream.of(options).filter(SMBCopyProgress.class::isInstance).map(SMBCopyProgress.class::cast)
+				.map(option -> option.listener).findFirst().orElse(null);
+	}
+
+	@Override
+	public String toString() {
+		return "SMBCopyProgress [listener=" + listener + "]";
+	}
+
+}
@@ -1,41 +1,122 @@
 package io.github.rgleixner.smbjfilesystem;
 
 import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Iterator;
-import java.util.List;
+import java.util.NoSuchElementException;
 
+import com.hierynomus.msdtyp.AccessMask;
 import com.hierynomus.msfscc.fileinformation.FileIdBothDirectoryInformation;
+import com.hierynomus.mssmb2.SMB2CreateDisposition;
+import com.hierynomus.mssmb2.SMB2ShareAccess;
+import com.hierynomus.mssmb2.SMBApiException;
+import com.hierynomus.smbj.share.Directory;
 
 public final class SMBDirectoryStream implements DirectoryStream<Path> {
 
-	private ArrayList<Path> content = new ArrayList<>();
+	private final class SMBDirectoryIterator implements Iterator<Path> {
 
-	private volatile boolean open = true;
+		private final Iterator<FileIdBothDirectoryInformation> entries;
 
-	SMBDirectoryStream(SMBPath path, Filter<? super Path> filter) throws IOException {
-		List<FileIdBothDirectoryInformation> list = path.call((share, relativePath) -> share.list(relativePath));
-		for (FileIdBothDirectoryInformation name : list) {
-			final Path child = path.resolve(name.getFileName());
-			if (filter == null || filter.accept(child)) {
-				this.content.add(child);
+		private Path next;
+
+		SMBDirectoryIterator(Iterator<FileIdBothDirectoryInformation> entries) {
+			this.entries = entries;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (this.next == null) {
+				this.next = fetchNext();
+			}
+			return this.next != null;
+		}
+
+		@Override
+		public Path next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Path result = this.next;
+			this.next = null;
+			return result;
+		}
+
+		private Path fetchNext() {
+			try {
+				while (!SMBDirectoryStream.this.closed && this.entries.hasNext()) {
+					FileIdBothDirectoryInformation entry = this.entries.next();
+					String name = entry.getFileName();
+					if (name.equals(".") || name.equals("..")) {
+						continue;
+					}
+					SMBFileAttributes attributes = new SMBFileAttributes(entry);
+					SMBPath child = SMBPath.fromPath(SMBDirectoryStream.this.path.resolve(name))
+							.withAttributes(attributes);
+					child.getFileSystem().cacheAttributes(child, attributes, SMBDirectoryStream.this.generation);
+					if (SMBDirectoryStream.this.filter == null || SMBDirectoryStream.this.filter.accept(child)) {
+						return child;
+					}
+				}
+			} catch (SMBApiException e) {
+				throw new DirectoryIteratorException(
+						SMBExceptionUtil.translateToNIOException(e, SMBDirectoryStream.this.path));
+			} catch (IOException e) {
+				throw new DirectoryIteratorException(e);
 			}
+			close();
+			return null;
 		}
+
+	}
+
+	private final SMBPath path;
+
+	private final Filter<? super Path> filter;
+
+	private final String searchPattern;
+
+	private final Directory directory;
+
+	private final long generation;
+
+	private volatile boolean closed = false;
+
+	private boolean iteratorReturned = false;
+
+	SMBDirectoryStream(SMBPath path, Filter<? super Path> filter) throws IOException {
+		this(path, filter, null);
+	}
+
+	SMBDirectoryStream(SMBPath path, Filter<? super Path> filter, String searchPattern) throws IOException {
+		this.path = path;
+		this.filter = filter;
+		this.searchPattern = searchPattern;
+		this.generation = path.getFileSystem().getAttributeCacheGeneration();
+		this.directory = path.call("openDirectory", (share, relativePath) -> share.openDirectory(relativePath,
+				EnumSet.of(AccessMask.FILE_LIST_DIRECTORY, AccessMask.FILE_READ_ATTRIBUTES, AccessMask.FILE_READ_EA),
+				null, SMB2ShareAccess.ALL, SMB2CreateDisposition.FILE_OPEN, null));
 	}
 
 	@Override
 	public synchronized Iterator<Path> iterator() {
-		if (!open) {
+		if (this.closed || this.iteratorReturned) {
 			throw new IllegalStateException("The SMBDirectoryStream has already returned an iterator or was closed.");
 		}
-		return this.content.iterator();
+		this.iteratorReturned = true;
+		return new SMBDirectoryIterator(
+				this.directory.iterator(FileIdBothDirectoryInformation.class, this.searchPattern));
 	}
 
 	@Override
 	public synchronized void close() {
-		this.open = false;
+		if (!this.closed) {
+			this.closed = true;
+			this.directory.closeSilently();
+		}
 	}
 
 }
@@ -1,5 +1,6 @@
 package io.github.rgleixner.smbjfilesystem;
 
+import java.io.IOException;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystemException;
@@ -8,6 +9,7 @@ import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
 
 import com.hierynomus.mssmb2.SMBApiException;
+import com.hierynomus.smbj.common.SMBRuntimeException;
 
 public final class SMBExceptionUtil {
 
@@ -42,4 +44,11 @@ public final class SMBExceptionUtil {
 	static FileSystemException translateToNIOException(SMBApiException e, Path path) {
 		return translateToNIOException(e, path, null);
 	}
+
+	static IOException translateToIOException(SMBRuntimeException e, Path path) {
+		if (e instanceof SMBApiException) {
+			return translateToNIOException((SMBApiException) e, path);
+		}
+		return new IOException(e.getMessage(), e);
+	}
 }
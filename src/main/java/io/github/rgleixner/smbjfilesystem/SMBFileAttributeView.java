@@ -24,7 +24,7 @@ public final class SMBFileAttributeView implements BasicFileAttributeView {
 
 	@Override
 	public BasicFileAttributes readAttributes() throws IOException {
-		return new SMBFileAttributes(this.path);
+		return this.path.getFileSystem().readAttributes(this.path);
 	}
 
 	@Override
@@ -37,10 +37,11 @@ public final class SMBFileAttributeView implements BasicFileAttributeView {
 				convertFileTime(lastAccessTime), convertFileTime(lastModifiedTime), convertFileTime(lastModifiedTime),
 				0);
 
-		this.path.call((share, relativePath) -> {
-			share.setFileInformation(relativePath, fileBasicInformaion);
+		this.path.call("setTimes", (share, relativePath) -> {
+			SMBShareOperations.setInformation(share, relativePath, fileBasicInformaion);
 			return Void.TYPE;
 		});
+		this.path.getFileSystem().invalidateAttributes(this.path);
 	}
 
 	private com.hierynomus.msdtyp.FileTime convertFileTime(FileTime fileTime) {
@@ -7,43 +7,80 @@ import java.util.concurrent.TimeUnit;
 
 import com.hierynomus.msfscc.FileAttributes;
 import com.hierynomus.msfscc.fileinformation.FileAllInformation;
+import com.hierynomus.msfscc.fileinformation.FileIdBothDirectoryInformation;
 
 public final class SMBFileAttributes implements BasicFileAttributes {
 
-	private final FileAllInformation fileInformation;
+	private final com.hierynomus.msdtyp.FileTime lastWriteTime;
+
+	private final com.hierynomus.msdtyp.FileTime lastAccessTime;
+
+	private final com.hierynomus.msdtyp.FileTime creationTime;
+
+	private final long fileAttributes;
+
+	private final long size;
+
+	private final long fileId;
 
 	SMBFileAttributes(SMBPath path) throws IOException {
-		fileInformation = path.call((share, relativePath) -> share.getFileInformation(relativePath));
+		this(path.<FileAllInformation>call("readAttributes",
+				(share, relativePath) -> SMBShareOperations.queryInformation(share, relativePath,
+						FileAllInformation.class)));
+	}
+
+	SMBFileAttributes(FileAllInformation fileInformation) {
+		this(fileInformation.getBasicInformation().getLastWriteTime(),
+				fileInformation.getBasicInformation().getLastAccessTime(),
+				fileInformation.getBasicInformation().getCreationTime(),
+				fileInformation.getBasicInformation().getFileAttributes(),
+				fileInformation.getStandardInformation().getEndOfFile(),
+				fileInformation.getInternalInformation().getIndexNumber());
+	}
+
+	SMBFileAttributes(FileIdBothDirectoryInformation directoryInformation) {
+		this(directoryInformation.getLastWriteTime(), directoryInformation.getLastAccessTime(),
+				directoryInformation.getCreationTime(), directoryInformation.getFileAttributes(),
+				directoryInformation.getEndOfFile(), directoryInformation.getFileId());
+	}
+
+	SMBFileAttributes(com.hierynomus.msdtyp.FileTime lastWriteTime, com.hierynomus.msdtyp.FileTime lastAccessTime,
+			com.hierynomus.msdtyp.FileTime creationTime, long fileAttributes, long size, long fileId) {
+		this.lastWriteTime = lastWriteTime;
+		this.lastAccessTime = lastAccessTime;
+		this.creationTime = creationTime;
+		this.fileAttributes = fileAttributes;
+		this.size = size;
+		this.fileId = fileId;
 	}
 
 	@Override
 	public FileTime lastModifiedTime() {
-		return FileTime.from(fileInformation.getBasicInformation().getLastWriteTime().toEpochMillis(),
-				TimeUnit.MILLISECONDS);
+		return FileTime.from(lastWriteTime.toEpochMillis(), TimeUnit.MILLISECONDS);
 	}
 
 	@Override
 	public FileTime lastAccessTime() {
-		return FileTime.from(fileInformation.getBasicInformation().getLastAccessTime().toEpochMillis(),
-				TimeUnit.MILLISECONDS);
+		return FileTime.from(lastAccessTime.toEpochMillis(), TimeUnit.MILLISECONDS);
 	}
 
 	@Override
 	public FileTime creationTime() {
-		return FileTime.from(fileInformation.getBasicInformation().getCreationTime().toEpochMillis(),
-				TimeUnit.MILLISECONDS);
+		return FileTime.from(creationTime.toEpochMillis(), TimeUnit.MILLISECONDS);
 	}
 
 	@Override
 	public boolean isRegularFile() {
-		return (fileInformation.getBasicInformation().getFileAttributes()
-				& FileAttributes.FILE_ATTRIBUTE_DIRECTORY.getValue()) == 0;
+		return (fileAttributes & FileAttributes.FILE_ATTRIBUTE_DIRECTORY.getValue()) == 0;
 	}
 
 	@Override
 	public boolean isDirectory() {
-		return (fileInformation.getBasicInformation().getFileAttributes()
-				& FileAttributes.FILE_ATTRIBUTE_DIRECTORY.getValue()) != 0;
+		return (fileAttributes & FileAttributes.FILE_ATTRIBUTE_DIRECTORY.getValue()) != 0;
+	}
+
+	boolean isReparsePoint() {
+		return (fileAttributes & FileAttributes.FILE_ATTRIBUTE_REPARSE_POINT.getValue()) != 0;
 	}
 
 	@Override
@@ -58,12 +95,16 @@ public final class SMBFileAttributes implements BasicFileAttributes {
 
 	@Override
 	public long size() {
-		return fileInformation.getStandardInformation().getEndOfFile();
+		return size;
 	}
 
 	@Override
 	public Object fileKey() {
-		return fileInformation.getNameInformation();
+		return fileId;
+	}
+
+	boolean isHidden() {
+		return (fileAttributes & FileAttributes.FILE_ATTRIBUTE_HIDDEN.getValue()) != 0;
 	}
 
 }
@@ -0,0 +1,307 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+import com.hierynomus.msfscc.fileinformation.FileStandardInformation;
+
+public final class SMBFileChannel extends FileChannel {
+
+	private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+	private final SMBPath path;
+
+	private final SMBFileHandle handle;
+
+	private final boolean readable;
+
+	private final boolean writable;
+
+	private final boolean append;
+
+	private final int readSize;
+
+	private final Object positionLock = new Object();
+
+	private volatile long position = 0;
+
+	private volatile boolean modified = false;
+
+	SMBFileChannel(SMBPath path, Set<? extends OpenOption> options) throws IOException {
+		this.path = path;
+		this.handle = new SMBFileHandle(path, options);
+		this.writable = options.contains(StandardOpenOption.WRITE);
+		this.readable = options.contains(StandardOpenOption.READ) || !this.writable;
+		this.append = options.contains(StandardOpenOption.APPEND);
+		this.readSize = SMBReadAhead.getReadSize(this.handle.get());
+
+		if (this.writable && options.contains(StandardOpenOption.TRUNCATE_EXISTING)) {
+			this.handle.get().setLength(0);
+			path.getFileSystem().invalidateAttributes(path);
+		}
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		ensureReadable();
+		synchronized (this.positionLock) {
+			int read = readAt(dst, this.position);
+			if (read > 0) {
+				this.position += read;
+			}
+			return read;
+		}
+	}
+
+	@Override
+	public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+		ensureReadable();
+		synchronized (this.positionLock) {
+			long total = 0;
+			for (int i = offset; i < offset + length; i++) {
+				while (dsts[i].hasRemaining()) {
+					int read = readAt(dsts[i], this.position);
+					if (read <= 0) {
+						return total == 0 && read < 0 ? -1 : total;
+					}
+					this.position += read;
+					total += read;
+				}
+			}
+			return total;
+		}
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		ensureWritable();
+		synchronized (this.positionLock) {
+			if (this.append) {
+				this.position = size();
+			}
+			int written = writeAt(src, this.position);
+			this.position += written;
+			return written;
+		}
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		ensureWritable();
+		synchronized (this.positionLock) {
+			long total = 0;
+			for (int i = offset; i < offset + length; i++) {
+				total += write(srcs[i]);
+			}
+			return total;
+		}
+	}
+
+	@Override
+	public long position() throws IOException {
+		ensureOpen();
+		return this.position;
+	}
+
+	@Override
+	public FileChannel position(long newPosition) throws IOException {
+		ensureOpen();
+		if (newPosition < 0) {
+			throw new IllegalArgumentException("The position must not be negative.");
+		}
+		synchronized (this.positionLock) {
+			this.position = newPosition;
+		}
+		return this;
+	}
+
+	@Override
+	public long size() throws IOException {
+		ensureOpen();
+		return this.handle.run(file -> file.getFileInformation(FileStandardInformation.class).getEndOfFile());
+	}
+
+	@Override
+	public FileChannel truncate(long size) throws IOException {
+		ensureWritable();
+		if (size < 0) {
+			throw new IllegalArgumentException("The size must not be negative.");
+		}
+		synchronized (this.positionLock) {
+			if (size < size()) {
+				this.handle.run(file -> {
+					file.setLength(size);
+					return null;
+				});
+				this.path.getFileSystem().invalidateAttributes(this.path);
+			}
+			this.position = Math.min(this.position, size);
+		}
+		return this;
+	}
+
+	@Override
+	public void force(boolean metaData) throws IOException {
+		ensureOpen();
+		this.handle.run(file -> {
+			file.flush();
+			return null;
+		});
+		if (this.modified) {
+			this.path.getFileSystem().invalidateAttributes(this.path);
+		}
+	}
+
+	@Override
+	public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+		ensureReadable();
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count, this.readSize));
+		long transferred = 0;
+		while (transferred < count) {
+			buffer.clear().limit((int) Math.min(buffer.capacity(), count - transferred));
+			int read = readAt(buffer, position + transferred);
+			if (read <= 0) {
+				break;
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				target.write(buffer);
+			}
+			transferred += read;
+		}
+		return transferred;
+	}
+
+	@Override
+	public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+		ensureWritable();
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count, TRANSFER_BUFFER_SIZE));
+		long transferred = 0;
+		while (transferred < count) {
+			buffer.clear().limit((int) Math.min(buffer.capacity(), count - transferred));
+			int read = src.read(buffer);
+			if (read <= 0) {
+				break;
+			}
+			buffer.flip();
+			transferred += writeAt(buffer, position + transferred);
+		}
+		return transferred;
+	}
+
+	@Override
+	public int read(ByteBuffer dst, long position) throws IOException {
+		ensureReadable();
+		if (position < 0) {
+			throw new IllegalArgumentException("The position must not be negative.");
+		}
+		return readAt(dst, position);
+	}
+
+	@Override
+	public int write(ByteBuffer src, long position) throws IOException {
+		ensureWritable();
+		if (position < 0) {
+			throw new IllegalArgumentException("The position must not be negative.");
+		}
+		return writeAt(src, position);
+	}
+
+	@Override
+	public MappedByteBuffer map(MapMode mode, long position, long size) {
+		throw new UnsupportedOperationException("Memory mapping is not supported by SMBFileChannel.");
+	}
+
+	@Override
+	public FileLock lock(long position, long size, boolean shared) {
+		throw new UnsupportedOperationException("File locks are not supported by SMBFileChannel.");
+	}
+
+	@Override
+	public FileLock tryLock(long position, long size, boolean shared) {
+		throw new UnsupportedOperationException("File locks are not supported by SMBFileChannel.");
+	}
+
+	@Override
+	protected void implCloseChannel() throws IOException {
+		this.handle.close();
+		if (this.modified) {
+			this.path.getFileSystem().invalidateAttributes(this.path);
+		}
+	}
+
+	static int readAt(SMBFileSystem fileSystem, SMBFileHandle handle, ByteBuffer dst, long position, int readSize)
+			throws IOException {
+		if (!dst.hasRemaining()) {
+			return 0;
+		}
+		int limit = dst.position() + Math.min(dst.remaining(), readSize);
+		long start = System.nanoTime();
+		int read = 0;
+		boolean success = false;
+		try {
+			read = handle.run(file -> (int) file.read(dst.duplicate().limit(limit), position));
+			success = true;
+		} finally {
+			fileSystem.recordTransfer("read", start, Math.max(read, 0), success);
+		}
+		if (read > 0) {
+			dst.position(dst.position() + read);
+		}
+		return read;
+	}
+
+	private int readAt(ByteBuffer dst, long position) throws IOException {
+		return readAt(this.path.getFileSystem(), this.handle, dst, position, this.readSize);
+	}
+
+	private int writeAt(ByteBuffer src, long position) throws IOException {
+		long start = System.nanoTime();
+		int written = 0;
+		boolean success = false;
+		try {
+			written = (int) this.handle.write(src, position);
+			success = true;
+		} finally {
+			this.path.getFileSystem().recordTransfer("write", start, written, success);
+		}
+		// attributes are invalidated on the first write and again on force and close, not for every chunk
+		if (!this.modified) {
+			this.modified = true;
+			this.path.getFileSystem().invalidateAttributes(this.path);
+		}
+		return written;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (!isOpen()) {
+			throw new ClosedChannelException();
+		}
+	}
+
+	private void ensureReadable() throws IOException {
+		ensureOpen();
+		if (!this.readable) {
+			throw new NonReadableChannelException();
+		}
+	}
+
+	private void ensureWritable() throws IOException {
+		ensureOpen();
+		if (!this.writable) {
+			throw new NonWritableChannelException();
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.hierynomus.mserref.NtStatus;
+import com.hierynomus.mssmb2.SMBApiException;
+import com.hierynomus.smbj.common.SMBRuntimeException;
+import com.hierynomus.smbj.share.File;
+
+final class SMBFileHandle {
+
+	private static final long RECONNECT_BACKOFF_MILLIS = 200;
+
+	private static final Set<NtStatus> RECONNECT_STATUSES = EnumSet.of(NtStatus.STATUS_FILE_CLOSED,
+			NtStatus.STATUS_NETWORK_NAME_DELETED, NtStatus.STATUS_USER_SESSION_DELETED,
+			NtStatus.STATUS_NETWORK_SESSION_EXPIRED, NtStatus.STATUS_CONNECTION_DISCONNECTED,
+			NtStatus.STATUS_CONNECTION_RESET, NtStatus.STATUS_IO_TIMEOUT);
+
+	@FunctionalInterface
+	interface FileAction<T> {
+
+		T run(File file) throws IOException;
+
+	}
+
+	private final SMBPath path;
+
+	private final Set<OpenOption> reopenOptions;
+
+	private final int attempts;
+
+	private volatile File file;
+
+	SMBFileHandle(SMBPath path, Set<? extends OpenOption> options) throws IOException {
+		this.path = path;
+		this.reopenOptions = new HashSet<>(options);
+		this.reopenOptions.removeAll(EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.APPEND));
+		this.attempts = path.getFileSystem().getReconnectAttempts();
+		this.file = SMBSeekableByteChannel.openFile(path, options);
+	}
+
+	File get() {
+		return this.file;
+	}
+
+	SMBPath getPath() {
+		return this.path;
+	}
+
+	<T> T run(FileAction<T> action) throws IOException {
+		for (int attempt = 0;; attempt++) {
+			File current = this.file;
+			try {
+				return action.run(current);
+			} catch (SMBRuntimeException e) {
+				if (attempt >= this.attempts || !isReconnectable(e)) {
+					throw e;
+				}
+				SMBFileSystem.LOGGER.debug("lost handle for {}, reopening (attempt {} of {})", this.path, attempt + 1,
+						this.attempts, e);
+				reopen(current, attempt);
+			}
+		}
+	}
+
+	int read(ByteBuffer dst, long position) throws IOException {
+		int read = run(file -> (int) file.read(dst.duplicate(), position));
+		if (read > 0) {
+			dst.position(dst.position() + read);
+		}
+		return read;
+	}
+
+	long write(ByteBuffer src, long position) throws IOException {
+		long written = run(file -> file.write(src.duplicate(), position));
+		src.position(src.position() + (int) written);
+		return written;
+	}
+
+	void close() {
+		this.file.close();
+	}
+
+	static boolean isReconnectable(Throwable e) {
+		if (e instanceof SMBApiException) {
+			return RECONNECT_STATUSES.contains(((SMBApiException) e).getStatus());
+		}
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof IOException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private synchronized void reopen(File failed, int attempt) throws IOException {
+		if (this.file != failed) {
+			return;
+		}
+		try {
+			Thread.sleep(RECONNECT_BACKOFF_MILLIS * attempt);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reconnecting " + this.path + ".");
+		}
+		try {
+			failed.close();
+		} catch (RuntimeException e) {
+			SMBFileSystem.LOGGER.trace("failed to close lost handle for {}", this.path, e);
+		}
+		try {
+			this.file = SMBSeekableByteChannel.openFile(this.path, this.reopenOptions);
+		} catch (SMBRuntimeException e) {
+			if (!isReconnectable(e)) {
+				throw e;
+			}
+			SMBFileSystem.LOGGER.debug("failed to reopen {}", this.path, e);
+		}
+	}
+
+}
@@ -33,17 +33,17 @@ public final class SMBFileStore extends FileStore {
 
 	@Override
 	public long getTotalSpace() throws IOException {
-		return path.call((share, __) -> share.getShareInformation().getTotalSpace());
+		return path.call("getShareInformation", (share, __) -> share.getShareInformation().getTotalSpace());
 	}
 
 	@Override
 	public long getUsableSpace() throws IOException {
-		return path.call((share, __) -> share.getShareInformation().getCallerFreeSpace());
+		return path.call("getShareInformation", (share, __) -> share.getShareInformation().getCallerFreeSpace());
 	}
 
 	@Override
 	public long getUnallocatedSpace() throws IOException {
-		return path.call((share, __) -> share.getShareInformation().getFreeSpace());
+		return path.call("getShareInformation", (share, __) -> share.getShareInformation().getFreeSpace());
 	}
 
 	@Override
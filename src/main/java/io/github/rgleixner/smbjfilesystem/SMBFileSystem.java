@@ -1,17 +1,32 @@
 package io.github.rgleixner.smbjfilesystem;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.nio.file.ClosedFileSystemException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileStore;
 import java.nio.file.FileSystem;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.UserPrincipalLookupService;
 import java.nio.file.spi.FileSystemProvider;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +65,8 @@ public final class SMBFileSystem extends FileSystem {
 	private static final Set<String> SUPPORTED_FILE_ATTRIBUTE_VIEWS = Set
 			.of(SMBFileAttributeView.FILE_ATTRIBUTE_VIEW_NAME);
 
+	private static final AtomicInteger MBEAN_IDS = new AtomicInteger();
+
 	private final SMBFileSystemProvider provider;
 
 	private final URI fqn;
@@ -58,6 +75,34 @@ public final class SMBFileSystem extends FileSystem {
 
 	private final SMBClientWrapper clientWrapper;
 
+	private final ExecutorService executor;
+
+	private SMBAsyncCompleter asyncCompleter;
+
+	private SMBAsyncCompleter watchCompleter;
+
+	private final int readAheadDepth;
+
+	private final int writeBehindDepth;
+
+	private final int reconnectAttempts;
+
+	private final int copyParallelism;
+
+	private final int batchConcurrency;
+
+	private final int asyncThreads;
+
+	private final SMBAttributeCache attributeCache;
+
+	private final SMBContentCache contentCache;
+
+	private final SMBMetrics metrics;
+
+	private final String shareName;
+
+	private final ObjectName objectName;
+
 	static URI createFQN(URI uri) {
 		if (!uri.getScheme().equals(SMBFileSystem.SMB_SCHEME)) {
 			throw new IllegalArgumentException("The provided URI is not an SMB URI.");
@@ -74,11 +119,58 @@ public final class SMBFileSystem extends FileSystem {
 				SMB_SCHEME + SMBFileSystem.SCHEME_SEPARATOR + authority + SMBFileSystem.PATH_SEPARATOR + shareName);
 	}
 
-	SMBFileSystem(SMBFileSystemProvider provider, URI fqn, SMBClientWrapper clientWrapper) {
+	SMBFileSystem(SMBFileSystemProvider provider, URI fqn, SMBClientWrapper clientWrapper, Map<String, ?> env,
+			SMBMetrics metrics) {
 		this.provider = provider;
 		this.fqn = fqn;
 		this.clientWrapper = clientWrapper;
 		this.fileStores = List.of(new SMBFileStore(new SMBPath(this, getSeparator())));
+		this.readAheadDepth = SMBFileSystemProvider.getIntProperty(env, SMBFileSystemProvider.PROPERTY_READ_AHEAD, 0);
+		this.writeBehindDepth = SMBFileSystemProvider.getIntProperty(env, SMBFileSystemProvider.PROPERTY_WRITE_BEHIND,
+				0);
+		this.reconnectAttempts = SMBFileSystemProvider.getIntProperty(env,
+				SMBFileSystemProvider.PROPERTY_RECONNECT_ATTEMPTS, 3);
+		this.copyParallelism = SMBFileSystemProvider.getIntProperty(env,
+				SMBFileSystemProvider.PROPERTY_COPY_PARALLELISM, 4);
+		this.batchConcurrency = SMBFileSystemProvider.getIntProperty(env,
+				SMBFileSystemProvider.PROPERTY_BATCH_CONCURRENCY, 16);
+		this.asyncThreads = SMBFileSystemProvider.getIntProperty(env, SMBFileSystemProvider.PROPERTY_ASYNC_THREADS,
+				4);
+		int attributeCacheSize = SMBFileSystemProvider.getIntProperty(env,
+				SMBFileSystemProvider.PROPERTY_ATTRIBUTE_CACHE_SIZE, 0);
+		this.attributeCache = attributeCacheSize > 0 ? new SMBAttributeCache(attributeCacheSize,
+				SMBFileSystemProvider.getIntProperty(env, SMBFileSystemProvider.PROPERTY_ATTRIBUTE_CACHE_TTL, 5000))
+				: null;
+		int contentCacheSize = SMBFileSystemProvider.getIntProperty(env,
+				SMBFileSystemProvider.PROPERTY_CONTENT_CACHE_SIZE, 0);
+		this.contentCache = contentCacheSize > 0 ? new SMBContentCache(contentCacheSize,
+				SMBFileSystemProvider.getIntProperty(env, SMBFileSystemProvider.PROPERTY_CONTENT_CACHE_MAX_ENTRY_SIZE,
+						1024 * 1024))
+				: null;
+
+		this.metrics = metrics != null ? metrics : SMBMetrics.NOOP;
+		this.shareName = fqn.getHost() + (fqn.getPort() != -1 ? ":" + fqn.getPort() : "") + fqn.getPath();
+		this.objectName = Boolean.parseBoolean(String.valueOf(env.get(SMBFileSystemProvider.PROPERTY_JMX)))
+				&& this.metrics instanceof SMBMetricsMXBean ? registerMBean((SMBMetricsMXBean) this.metrics) : null;
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "smbj-filesystem-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private ObjectName registerMBean(SMBMetricsMXBean mbean) {
+		try {
+			ObjectName name = new ObjectName("io.github.rgleixner.smbjfilesystem:type=SMBFileSystem,name="
+					+ ObjectName.quote(this.shareName) + ",id=" + MBEAN_IDS.incrementAndGet());
+			ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+			return name;
+		} catch (JMException e) {
+			SMBFileSystem.LOGGER.warn("failed to register metrics MBean for {}", this.shareName, e);
+			return null;
+		}
 	}
 
 	@Override
@@ -94,6 +186,22 @@ public final class SMBFileSystem extends FileSystem {
 			} catch (Exception e) {
 				SMBFileSystem.LOGGER.error("failed to close SMB filesystem", e);
 			}
+			synchronized (this) {
+				if (asyncCompleter != null) {
+					asyncCompleter.close();
+				}
+				if (watchCompleter != null) {
+					watchCompleter.close();
+				}
+			}
+			executor.shutdownNow();
+			if (objectName != null) {
+				try {
+					ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+				} catch (JMException e) {
+					SMBFileSystem.LOGGER.warn("failed to unregister metrics MBean for {}", this.shareName, e);
+				}
+			}
 			this.provider.fileSystemCache.remove(this.fqn);
 		}
 	}
@@ -153,6 +261,10 @@ public final class SMBFileSystem extends FileSystem {
 		return new SMBPathMatcher(syntaxAndPattern);
 	}
 
+	public PathMatcher getPathMatcher(Collection<String> syntaxAndPatterns) {
+		return new SMBPathMatcherSet(syntaxAndPatterns);
+	}
+
 	@Override
 	public UserPrincipalLookupService getUserPrincipalLookupService() {
 		throw new UnsupportedOperationException("The SMBFileSystem does not support UserPrincipalLookupServices.");
@@ -160,46 +272,232 @@ public final class SMBFileSystem extends FileSystem {
 
 	@Override
 	public WatchService newWatchService() {
-		throw new UnsupportedOperationException("The SMBFileSystem does not support WatchService.");
+		if (!this.isOpen()) {
+			throw new ClosedFileSystemException();
+		}
+		return new SMBWatchService(this);
+	}
+
+	public List<SMBBatchResult<Void>> deleteAll(Collection<? extends Path> paths) throws IOException {
+		return newBatch().run(paths, path -> {
+			this.provider.delete(path);
+			return null;
+		});
+	}
+
+	public List<SMBBatchResult<BasicFileAttributes>> readAttributesAll(Collection<? extends Path> paths)
+			throws IOException {
+		return newBatch().run(paths, path -> path.getFileSystem().readAttributes(path));
+	}
+
+	public List<SMBBatchResult<Boolean>> exists(Collection<? extends Path> paths) throws IOException {
+		return newBatch().run(paths, path -> {
+			try {
+				path.getFileSystem().readAttributes(path);
+				return Boolean.TRUE;
+			} catch (NoSuchFileException e) {
+				return Boolean.FALSE;
+			}
+		});
+	}
+
+	public List<SMBBatchResult<Void>> createDirectories(Collection<? extends Path> paths) throws IOException {
+		TreeMap<Integer, Set<Path>> levels = new TreeMap<>();
+		for (Path path : paths) {
+			for (Path current = path.toAbsolutePath().normalize(); current != null
+					&& current.getNameCount() > 0; current = current.getParent()) {
+				levels.computeIfAbsent(current.getNameCount(), count -> new LinkedHashSet<>()).add(current);
+			}
+		}
+
+		Map<Path, SMBBatchResult<Void>> created = new HashMap<>();
+		for (Set<Path> level : levels.values()) {
+			for (SMBBatchResult<Void> result : newBatch().run(level, this::createDirectoryIfAbsent)) {
+				created.put(result.getPath(), result);
+			}
+		}
+		return paths.stream().map(path -> {
+			SMBBatchResult<Void> result = created.get(path.toAbsolutePath().normalize());
+			// the share root has no level of its own and always exists
+			return new SMBBatchResult<Void>(path, null, result != null ? result.getError() : null);
+		}).toList();
+	}
+
+	private Void createDirectoryIfAbsent(SMBPath path) throws IOException {
+		try {
+			this.provider.createDirectory(path);
+		} catch (FileAlreadyExistsException e) {
+			if (!path.getFileSystem().readAttributes(path).isDirectory()) {
+				throw e;
+			}
+		}
+		return null;
+	}
+
+	private SMBBatch newBatch() {
+		return new SMBBatch(this.executor, this.batchConcurrency);
 	}
 
 	URI getFQN() {
 		return fqn;
 	}
 
+	ExecutorService getExecutor() {
+		return executor;
+	}
+
+	synchronized SMBAsyncCompleter getAsyncCompleter() {
+		if (asyncCompleter == null) {
+			asyncCompleter = new SMBAsyncCompleter("smbj-filesystem-async", asyncThreads);
+		}
+		return asyncCompleter;
+	}
+
+	// change notifications wait on their own completer so that they never delay channel I/O
+	synchronized SMBAsyncCompleter getWatchCompleter() {
+		if (watchCompleter == null) {
+			watchCompleter = new SMBAsyncCompleter("smbj-filesystem-watch", asyncThreads);
+		}
+		return watchCompleter;
+	}
+
+	int getReadAheadDepth() {
+		return readAheadDepth;
+	}
+
+	int getWriteBehindDepth() {
+		return writeBehindDepth;
+	}
+
+	int getReconnectAttempts() {
+		return reconnectAttempts;
+	}
+
+	int getCopyParallelism() {
+		return copyParallelism;
+	}
+
+	SMBFileAttributes readAttributes(SMBPath path) throws IOException {
+		if (attributeCache == null) {
+			return new SMBFileAttributes(path);
+		}
+		SMBFileAttributes attributes = attributeCache.get(path);
+		if (attributes == null) {
+			long generation = attributeCache.getGeneration();
+			attributes = new SMBFileAttributes(path);
+			attributeCache.put(path, attributes, generation);
+		}
+		return attributes;
+	}
+
+	// attributes already known without a round trip, from the cache or from the listing that produced the path
+	SMBFileAttributes peekAttributes(SMBPath path) {
+		SMBFileAttributes attributes = attributeCache != null ? attributeCache.get(path) : null;
+		return attributes != null ? attributes : path.getAttributes();
+	}
+
+	long getAttributeCacheGeneration() {
+		return attributeCache != null ? attributeCache.getGeneration() : 0;
+	}
+
+	void cacheAttributes(SMBPath path, SMBFileAttributes attributes, long generation) {
+		if (attributeCache != null) {
+			attributeCache.put(path, attributes, generation);
+		}
+	}
+
+	SMBContentCache getContentCache() {
+		return contentCache;
+	}
+
+	void invalidateAttributes(SMBPath path) {
+		if (attributeCache != null) {
+			attributeCache.invalidate(path);
+		}
+		if (contentCache != null) {
+			contentCache.invalidate(path);
+		}
+	}
+
+	void invalidateAttributeTree(SMBPath path) {
+		if (attributeCache != null) {
+			attributeCache.invalidateTree(path);
+		}
+		if (contentCache != null) {
+			contentCache.invalidateTree(path);
+		}
+	}
+
 	SMBShareWrapper getShare() throws IOException {
 		return clientWrapper.getShare();
 	}
 
-	<T> T call(SMBPath path, DiskShareAction<T> action) throws IOException {
+	<T> T call(SMBPath path, String operation, DiskShareAction<T> action) throws IOException {
 		if (!this.isOpen()) {
 			throw new ClosedFileSystemException();
 		}
+		long start = System.nanoTime();
+		boolean success = false;
 		try (SMBShareWrapper share = getShare()) {
+			start = recordShareWait(start);
 			String relativePath = path.toString();
 			SMBFileSystem.LOGGER.debug("call share {} with relative path {}",
 					share.getSmbShare().getSmbPath().toUncPath(), relativePath);
-			return action.run(share.getSmbShare(), relativePath);
+			T result = action.run(share.getSmbShare(), relativePath);
+			success = true;
+			return result;
 		} catch (SMBApiException e) {
 			SMBFileSystem.LOGGER.trace(e.getMessage(), e);
 			throw SMBExceptionUtil.translateToNIOException(e, path);
+		} finally {
+			recordOperation(operation, start, success);
 		}
 	}
 
-	<T> T call(SMBPath path, SMBPath pathOther, DiskShareAction2<T> action) throws IOException {
+	<T> T call(SMBPath path, SMBPath pathOther, String operation, DiskShareAction2<T> action) throws IOException {
 		if (!this.isOpen()) {
 			throw new ClosedFileSystemException();
 		}
-		try (SMBShareWrapper share = getShare(); SMBShareWrapper otherShare = pathOther.getFileSystem().getShare()) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try (SMBShareWrapper share = getShare();
+				SMBShareWrapper otherShare = pathOther.getFileSystem() == this ? share
+						: pathOther.getFileSystem().getShare()) {
+			start = recordShareWait(start);
 			String relativePath = path.toString();
 			String relativePathOther = pathOther.toString();
 			SMBFileSystem.LOGGER.debug("call share {} with relative path {} on other share {} with relative path",
 					share.getSmbShare().getSmbPath().toUncPath(), relativePath,
 					otherShare.getSmbShare().getSmbPath().toUncPath(), relativePathOther);
-			return action.run(share.getSmbShare(), relativePath, otherShare.getSmbShare(), relativePathOther);
+			T result = action.run(share.getSmbShare(), relativePath, otherShare.getSmbShare(), relativePathOther);
+			success = true;
+			return result;
 		} catch (SMBApiException e) {
 			SMBFileSystem.LOGGER.trace(e.getMessage(), e);
 			throw SMBExceptionUtil.translateToNIOException(e, path, pathOther);
+		} finally {
+			recordOperation(operation, start, success);
+		}
+	}
+
+	SMBMetrics getMetrics() {
+		return metrics;
+	}
+
+	long recordShareWait(long start) {
+		long now = System.nanoTime();
+		this.metrics.recordShareWait(this.shareName, now - start);
+		return now;
+	}
+
+	void recordOperation(String operation, long start, boolean success) {
+		this.metrics.recordOperation(this.shareName, operation, System.nanoTime() - start, success);
+	}
+
+	void recordTransfer(String operation, long start, long bytes, boolean success) {
+		recordOperation(operation, start, success);
+		if (bytes > 0) {
+			this.metrics.recordBytes(this.shareName, operation, bytes);
 		}
 	}
 
@@ -1,12 +1,17 @@
 package io.github.rgleixner.smbjfilesystem;
 
-import static com.hierynomus.msfscc.FileAttributes.FILE_ATTRIBUTE_NORMAL;
-
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.AccessMode;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.CopyOption;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
@@ -14,22 +19,30 @@ import java.nio.file.FileSystem;
 import java.nio.file.FileSystemAlreadyExistsException;
 import java.nio.file.FileSystemException;
 import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.FileAttributeView;
 import java.nio.file.spi.FileSystemProvider;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -48,8 +61,10 @@ import com.hierynomus.msdtyp.AccessMask;
 import com.hierynomus.mserref.NtStatus;
 import com.hierynomus.msfscc.FileAttributes;
 import com.hierynomus.msfscc.fileinformation.FileBasicInformation;
+import com.hierynomus.msfscc.fileinformation.FileStandardInformation;
 import com.hierynomus.mssmb2.SMB2CreateDisposition;
 import com.hierynomus.mssmb2.SMB2CreateOptions;
+import com.hierynomus.mssmb2.SMB2Dialect;
 import com.hierynomus.mssmb2.SMB2ShareAccess;
 import com.hierynomus.mssmb2.SMBApiException;
 import com.hierynomus.protocol.commons.buffer.Buffer.BufferException;
@@ -57,8 +72,6 @@ import com.hierynomus.smbj.SMBClient;
 import com.hierynomus.smbj.SmbConfig;
 import com.hierynomus.smbj.auth.AuthenticationContext;
 import com.hierynomus.smbj.auth.GSSAuthenticationContext;
-import com.hierynomus.smbj.share.Directory;
-import com.hierynomus.smbj.share.DiskEntry;
 import com.hierynomus.smbj.share.File;
 
 import io.github.rgleixner.smbjfilesystem.SMBClientWrapper.SMBClientWrapperImpl;
@@ -75,8 +88,66 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 
 	public static final String PROPERTY_PASSWORD = "smbj-filesystem.provider.password";
 
+	public static final String PROPERTY_POOL_SIZE = "smbj-filesystem.provider.pool-size";
+
+	public static final String PROPERTY_READ_AHEAD = "smbj-filesystem.provider.read-ahead";
+
+	public static final String PROPERTY_WRITE_BEHIND = "smbj-filesystem.provider.write-behind";
+
+	public static final String PROPERTY_RECONNECT_ATTEMPTS = "smbj-filesystem.provider.reconnect-attempts";
+
+	public static final String PROPERTY_ATTRIBUTE_CACHE_SIZE = "smbj-filesystem.provider.attribute-cache.size";
+
+	public static final String PROPERTY_ATTRIBUTE_CACHE_TTL = "smbj-filesystem.provider.attribute-cache.ttl";
+
+	// validated by size and timestamps only, smbj cannot take leases: changes that keep both are not detected
+	public static final String PROPERTY_CONTENT_CACHE_SIZE = "smbj-filesystem.provider.content-cache.size";
+
+	public static final String PROPERTY_CONTENT_CACHE_MAX_ENTRY_SIZE = "smbj-filesystem.provider.content-cache.max-entry-size";
+
+	public static final String PROPERTY_COPY_PARALLELISM = "smbj-filesystem.provider.copy-parallelism";
+
+	public static final String PROPERTY_BATCH_CONCURRENCY = "smbj-filesystem.provider.batch-concurrency";
+
+	public static final String PROPERTY_ASYNC_THREADS = "smbj-filesystem.provider.async-threads";
+
+	public static final String PROPERTY_JMX = "smbj-filesystem.provider.jmx";
+
+	public static final String PROPERTY_PROFILE = "smbj-filesystem.provider.profile";
+
+	public static final String PROPERTY_READ_BUFFER_SIZE = "smbj-filesystem.provider.read-buffer-size";
+
+	public static final String PROPERTY_WRITE_BUFFER_SIZE = "smbj-filesystem.provider.write-buffer-size";
+
+	public static final String PROPERTY_TRANSACT_BUFFER_SIZE = "smbj-filesystem.provider.transact-buffer-size";
+
+	public static final String PROPERTY_TIMEOUT = "smbj-filesystem.provider.timeout";
+
+	public static final String PROPERTY_SO_TIMEOUT = "smbj-filesystem.provider.so-timeout";
+
+	public static final String PROPERTY_DIALECTS = "smbj-filesystem.provider.dialects";
+
+	public static final String PROPERTY_SIGNING_REQUIRED = "smbj-filesystem.provider.signing-required";
+
+	public static final String PROPERTY_ENCRYPT_DATA = "smbj-filesystem.provider.encrypt-data";
+
+	public static final String PROPERTY_MULTI_CREDIT = "smbj-filesystem.provider.multi-credit";
+
+	public static final String PROPERTY_SOCKET_SEND_BUFFER_SIZE = "smbj-filesystem.provider.socket.send-buffer-size";
+
+	public static final String PROPERTY_SOCKET_RECEIVE_BUFFER_SIZE = "smbj-filesystem.provider.socket.receive-buffer-size";
+
+	public static final String PROPERTY_SHARED_CONNECTIONS = "smbj-filesystem.provider.shared-connections";
+
+	private static final int SINGLE_CREDIT_BUFFER_SIZE = 64 * 1024;
+
+	private static final List<String> CONFIG_PROPERTIES = List.of(PROPERTY_READ_BUFFER_SIZE, PROPERTY_WRITE_BUFFER_SIZE,
+			PROPERTY_TRANSACT_BUFFER_SIZE, PROPERTY_TIMEOUT, PROPERTY_SO_TIMEOUT, PROPERTY_DIALECTS,
+			PROPERTY_SIGNING_REQUIRED, PROPERTY_ENCRYPT_DATA, PROPERTY_MULTI_CREDIT, PROPERTY_SOCKET_SEND_BUFFER_SIZE,
+			PROPERTY_SOCKET_RECEIVE_BUFFER_SIZE);
+
 	private static Function<Map<String, ?>, SMBClient> clientFactory = (Map<String, ?> env) -> {
-		return new SMBClient(SmbConfig.createDefaultConfig());
+		return new SMBClient(createConfig(env));
 	};
 
 	private static Function<Map<String, ?>, AuthenticationContext> authenticationContextFactory = (
@@ -108,10 +179,112 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 	};
 
 	private static Function<Map<String, ?>, SMBClientWrapper> clientWrapperFactory = (Map<String, ?> env) -> {
-		return new SMBClientWrapperImpl((URI) env.get(PROPERTY_FQN), clientFactory.apply(env),
-				authenticationContextFactory.apply(env));
+		return new SMBClientWrapperImpl((URI) env.get(PROPERTY_FQN), () -> clientFactory.apply(env),
+				authenticationContextFactory.apply(env), getIntProperty(env, PROPERTY_POOL_SIZE, 1),
+				getBooleanProperty(env, PROPERTY_SHARED_CONNECTIONS, true) ? getClientKey(env) : null);
+	};
+
+	private static Function<Map<String, ?>, SMBMetrics> metricsFactory = (Map<String, ?> env) -> {
+		return new SMBMetricsRecorder();
 	};
 
+	static int getIntProperty(Map<String, ?> env, String key, int defaultValue) {
+		Object value = env.get(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		if (value instanceof Number) {
+			return ((Number) value).intValue();
+		}
+		try {
+			return Integer.parseInt(value.toString().trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("The property '" + key + "' must be an integer but was '" + value + "'.",
+					e);
+		}
+	}
+
+	static boolean getBooleanProperty(Map<String, ?> env, String key, boolean defaultValue) {
+		Object value = env.get(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		if (value instanceof Boolean) {
+			return (Boolean) value;
+		}
+		return Boolean.parseBoolean(value.toString().trim());
+	}
+
+	public static SmbConfig createConfig(Map<String, ?> env) {
+		SmbConfig.Builder builder = SmbConfig.builder();
+		boolean multiCredit = getBooleanProperty(env, PROPERTY_MULTI_CREDIT, true);
+		int defaultBufferSize = SmbConfig.createDefaultConfig().getReadBufferSize();
+		int readBufferSize = getIntProperty(env, PROPERTY_READ_BUFFER_SIZE, defaultBufferSize);
+		int writeBufferSize = getIntProperty(env, PROPERTY_WRITE_BUFFER_SIZE, defaultBufferSize);
+		int transactBufferSize = getIntProperty(env, PROPERTY_TRANSACT_BUFFER_SIZE, defaultBufferSize);
+		if (!multiCredit) {
+			readBufferSize = Math.min(readBufferSize, SINGLE_CREDIT_BUFFER_SIZE);
+			writeBufferSize = Math.min(writeBufferSize, SINGLE_CREDIT_BUFFER_SIZE);
+			transactBufferSize = Math.min(transactBufferSize, SINGLE_CREDIT_BUFFER_SIZE);
+		}
+		builder.withReadBufferSize(readBufferSize).withWriteBufferSize(writeBufferSize)
+				.withTransactBufferSize(transactBufferSize);
+
+		if (env.get(PROPERTY_TIMEOUT) != null) {
+			builder.withTimeout(getIntProperty(env, PROPERTY_TIMEOUT, 0), TimeUnit.MILLISECONDS);
+		}
+		if (env.get(PROPERTY_SO_TIMEOUT) != null) {
+			builder.withSoTimeout(getIntProperty(env, PROPERTY_SO_TIMEOUT, 0), TimeUnit.MILLISECONDS);
+		}
+		Object dialects = env.get(PROPERTY_DIALECTS);
+		if (dialects != null) {
+			try {
+				builder.withDialects(Stream.of(dialects.toString().split(",")).map(String::trim)
+						.filter(dialect -> !dialect.isEmpty()).map(SMB2Dialect::valueOf).toArray(SMB2Dialect[]::new));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException(
+						"The property '" + PROPERTY_DIALECTS + "' contains an unknown dialect: '" + dialects + "'.", e);
+			}
+		}
+		if (env.get(PROPERTY_SIGNING_REQUIRED) != null) {
+			builder.withSigningRequired(getBooleanProperty(env, PROPERTY_SIGNING_REQUIRED, false));
+		}
+		if (env.get(PROPERTY_ENCRYPT_DATA) != null) {
+			builder.withEncryptData(getBooleanProperty(env, PROPERTY_ENCRYPT_DATA, false));
+		}
+		int sendBufferSize = getIntProperty(env, PROPERTY_SOCKET_SEND_BUFFER_SIZE, 0);
+		int receiveBufferSize = getIntProperty(env, PROPERTY_SOCKET_RECEIVE_BUFFER_SIZE, 0);
+		if (sendBufferSize > 0 || receiveBufferSize > 0) {
+			builder.withSocketFactory(new SMBSocketFactory(sendBufferSize, receiveBufferSize));
+		}
+		return builder.build();
+	}
+
+	static Object getClientKey(Map<String, ?> env) {
+		Map<String, String> config = new HashMap<>();
+		for (String property : CONFIG_PROPERTIES) {
+			Object value = env.get(property);
+			if (value != null) {
+				config.put(property, value.toString().trim());
+			}
+		}
+		return List.of(clientFactory, config);
+	}
+
+	static Map<String, Object> createEnvironment(URI fqn, Map<String, ?> env) {
+		HashMap<String, Object> newEnv = new HashMap<>(System.getenv());
+		System.getProperties().forEach((key, value) -> newEnv.put(String.valueOf(key), value));
+		if (env != null) {
+			newEnv.putAll(env);
+		}
+		Object profile = newEnv.get(PROPERTY_PROFILE);
+		if (profile != null) {
+			SMBTuningProfile.of(profile.toString()).getProperties().forEach(newEnv::putIfAbsent);
+		}
+		newEnv.put(PROPERTY_FQN, fqn);
+		return newEnv;
+	}
+
 	private static GSSAuthenticationContext getGSSAuthenticationContext(String jaasServiceName) {
 		try {
 			LoginContext loginContext = new LoginContext(jaasServiceName);
@@ -154,6 +327,10 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 		SMBFileSystemProvider.clientWrapperFactory = clientWrapperFactory;
 	}
 
+	public static void setMetricsFactory(Function<Map<String, ?>, SMBMetrics> metricsFactory) {
+		SMBFileSystemProvider.metricsFactory = metricsFactory;
+	}
+
 	public SMBFileSystemProvider() {
 		this.fileSystemCache = new ConcurrentHashMap<>();
 	}
@@ -165,12 +342,12 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 
 	@Override
 	public FileSystem newFileSystem(URI uri, Map<String, ?> env) {
-		return lookupOrCreateFileSystem(uri, false, true);
+		return lookupOrCreateFileSystem(uri, env, false, true);
 	}
 
 	@Override
 	public FileSystem getFileSystem(URI uri) {
-		return lookupOrCreateFileSystem(uri, true, false);
+		return lookupOrCreateFileSystem(uri, Map.of(), true, false);
 	}
 
 	@Override
@@ -178,10 +355,11 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 		int indexOfSecondPathSeperator = uri.getPath().indexOf(SMBFileSystem.PATH_SEPARATOR, 1);
 		String path = indexOfSecondPathSeperator == -1 ? SMBFileSystem.PATH_SEPARATOR
 				: uri.getPath().substring(indexOfSecondPathSeperator);
-		return new SMBPath(lookupOrCreateFileSystem(uri, false, false), path);
+		return new SMBPath(lookupOrCreateFileSystem(uri, Map.of(), false, false), path);
 	}
 
-	private SMBFileSystem lookupOrCreateFileSystem(URI uri, boolean lookupOnly, boolean createOnly) {
+	private SMBFileSystem lookupOrCreateFileSystem(URI uri, Map<String, ?> env, boolean lookupOnly,
+			boolean createOnly) {
 		return this.fileSystemCache.compute(SMBFileSystem.createFQN(uri), (fqn, filesystem) -> {
 			if (filesystem == null && lookupOnly) {
 				throw new FileSystemNotFoundException("No filesystem for '" + fqn + "' could be found.");
@@ -189,17 +367,15 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 			if (filesystem != null && createOnly) {
 				throw new FileSystemAlreadyExistsException("Filesystem for '" + fqn + "' does already exist.");
 			}
-			return filesystem == null ? createFileSystem(fqn) : filesystem;
+			return filesystem == null ? createFileSystem(fqn, env) : filesystem;
 		});
 	}
 
-	private SMBFileSystem createFileSystem(URI fqn) {
+	private SMBFileSystem createFileSystem(URI fqn, Map<String, ?> env) {
 		SMBFileSystem.LOGGER.info("creating new filesystem with fqn={}", fqn);
-		HashMap<String, Object> newEnv = new HashMap<>(System.getenv());
-		System.getProperties().forEach((key, value) -> newEnv.put(String.valueOf(key), value));
-		newEnv.put(PROPERTY_FQN, fqn);
+		Map<String, Object> newEnv = createEnvironment(fqn, env);
 		SMBClientWrapper smbClientWrapper = clientWrapperFactory.apply(newEnv);
-		return new SMBFileSystem(this, fqn, smbClientWrapper);
+		return new SMBFileSystem(this, fqn, smbClientWrapper, newEnv, metricsFactory.apply(newEnv));
 	}
 
 	@Override
@@ -210,34 +386,92 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 		return new SMBSeekableByteChannel(SMBPath.fromPath(path), options, attrs);
 	}
 
+	@Override
+	public InputStream newInputStream(Path path, OpenOption... options) throws IOException {
+		SMBFileSystem.LOGGER.debug("newInputStream path={}, options={}", path, options);
+
+		Set<OpenOption> openOptions = new HashSet<>(Arrays.asList(options));
+		if (openOptions.contains(StandardOpenOption.APPEND) || openOptions.contains(StandardOpenOption.WRITE)) {
+			throw new UnsupportedOperationException("APPEND and WRITE are not supported for input streams.");
+		}
+		SMBSeekableByteChannel channel = new SMBSeekableByteChannel(SMBPath.fromPath(path), openOptions);
+		return new BufferedInputStream(Channels.newInputStream(channel), channel.getReadSize());
+	}
+
+	@Override
+	public OutputStream newOutputStream(Path path, OpenOption... options) throws IOException {
+		SMBFileSystem.LOGGER.debug("newOutputStream path={}, options={}", path, options);
+
+		Set<OpenOption> openOptions = new HashSet<>(Arrays.asList(options));
+		if (openOptions.isEmpty()) {
+			openOptions.add(StandardOpenOption.CREATE);
+			openOptions.add(StandardOpenOption.TRUNCATE_EXISTING);
+		} else if (openOptions.contains(StandardOpenOption.READ)) {
+			throw new IllegalArgumentException("READ is not allowed for output streams.");
+		}
+		openOptions.add(StandardOpenOption.WRITE);
+		SMBSeekableByteChannel channel = new SMBSeekableByteChannel(SMBPath.fromPath(path), openOptions);
+		return new BufferedOutputStream(Channels.newOutputStream(channel), channel.getWriteSize());
+	}
+
+	@Override
+	public FileChannel newFileChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs)
+			throws IOException {
+		SMBFileSystem.LOGGER.debug("newFileChannel path={}, options={}, attrs={}", path, options, attrs);
+
+		return new SMBFileChannel(SMBPath.fromPath(path), options);
+	}
+
+	@Override
+	public AsynchronousFileChannel newAsynchronousFileChannel(Path path, Set<? extends OpenOption> options,
+			ExecutorService executor, FileAttribute<?>... attrs) throws IOException {
+		SMBFileSystem.LOGGER.debug("newAsynchronousFileChannel path={}, options={}, executor={}, attrs={}", path,
+				options, executor, attrs);
+
+		return new SMBAsynchronousFileChannel(SMBPath.fromPath(path), options, executor);
+	}
+
 	@Override
 	public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter)
 			throws IOException {
 		SMBFileSystem.LOGGER.debug("newDirectoryStream dir={}, filter={}", dir, filter);
 
-		return new SMBDirectoryStream(SMBPath.fromPath(dir), filter);
+		String searchPattern = filter instanceof SMBPathMatcher ? ((SMBPathMatcher) filter).getSearchPattern() : null;
+		return new SMBDirectoryStream(SMBPath.fromPath(dir), filter, searchPattern);
+	}
+
+	public DirectoryStream<Path> newDirectoryStream(Path dir, String glob) throws IOException {
+		return newDirectoryStream(dir, new SMBPathMatcher("glob:" + glob));
 	}
 
 	@Override
 	public void createDirectory(Path dir, FileAttribute<?>... attrs) throws IOException {
 		SMBFileSystem.LOGGER.debug("createDirectory dir={}, attrs={}", dir, attrs);
 
-		SMBPath.fromPath(dir).call((share, relativePath) -> {
-			try (Directory directory = share.openDirectory(relativePath, EnumSet.of(AccessMask.GENERIC_WRITE), null,
-					SMB2ShareAccess.ALL, SMB2CreateDisposition.FILE_CREATE, null)) {
-				return Void.TYPE;
-			}
+		SMBPath smbDir = SMBPath.fromPath(dir);
+		smbDir.call("createDirectory", (share, relativePath) -> {
+			SMBShareOperations.createDirectory(share, relativePath);
+			return Void.TYPE;
 		});
+		smbDir.getFileSystem().invalidateAttributes(smbDir);
 	}
 
 	@Override
 	public void delete(Path path) throws IOException {
 		SMBFileSystem.LOGGER.debug("delete path={}", path);
 
-		SMBPath.fromPath(path).call((share, relativePath) -> {
+		SMBPath smbPath = SMBPath.fromPath(path);
+		smbPath.call("delete", (share, relativePath) -> {
 			share.rm(relativePath);
 			return Void.TYPE;
 		});
+		smbPath.getFileSystem().invalidateAttributes(smbPath);
+	}
+
+	public void deleteTree(Path path, int parallelism) throws IOException {
+		SMBFileSystem.LOGGER.debug("deleteTree path={}, parallelism={}", path, parallelism);
+
+		new SMBTreeDeleter(parallelism).delete(SMBPath.fromPath(path));
 	}
 
 	@Override
@@ -247,7 +481,17 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 		boolean replaceExisting = Stream.of(options).anyMatch(option -> option == StandardCopyOption.REPLACE_EXISTING);
 		boolean copyAttributes = Stream.of(options).anyMatch(option -> option == StandardCopyOption.COPY_ATTRIBUTES);
 
-		SMBPath.fromPath(source).call(SMBPath.fromPath(target),
+		if (!(source instanceof SMBPath)) {
+			upload(source, SMBPath.fromPath(target), replaceExisting, copyAttributes, options);
+			return;
+		}
+		if (!(target instanceof SMBPath)) {
+			download(SMBPath.fromPath(source), target, replaceExisting, copyAttributes, options);
+			return;
+		}
+
+		SMBPath smbTarget = SMBPath.fromPath(target);
+		SMBPath.fromPath(source).call(smbTarget, "copy",
 				(share, relativePath, shareOther, relativePathOther) -> {
 					try (File file = share.openFile(relativePath, EnumSet.of(AccessMask.GENERIC_READ),
 							EnumSet.of(FileAttributes.FILE_ATTRIBUTE_NORMAL),
@@ -267,10 +511,8 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 							throw new FileSystemException(source.toString(), target.toString(), exception.getMessage());
 						} catch (SMBApiException e) {
 							if (e.getStatus().equals(NtStatus.STATUS_NOT_SUPPORTED)) {
-								SMBFileSystem.LOGGER.debug("remote copy unsupported, fallback to streaming");
-								try (OutputStream os = fileOther.getOutputStream()) {
-									file.read(os);
-								}
+								SMBFileSystem.LOGGER.debug("remote copy unsupported, fallback to ranged copy");
+								copyRanges(file, fileOther, smbTarget.getFileSystem(), options);
 							} else {
 								throw e;
 							}
@@ -283,7 +525,7 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 						return Void.TYPE;
 					}
 				});
-
+		smbTarget.getFileSystem().invalidateAttributes(smbTarget);
 	}
 
 	@Override
@@ -293,7 +535,23 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 		boolean replaceExisting = Stream.of(options).anyMatch(option -> option == StandardCopyOption.REPLACE_EXISTING);
 		boolean copyAttributes = Stream.of(options).anyMatch(option -> option == StandardCopyOption.COPY_ATTRIBUTES);
 
-		SMBPath.fromPath(source).call(SMBPath.fromPath(target),
+		if (!(source instanceof SMBPath) || !(target instanceof SMBPath)) {
+			if (Stream.of(options).anyMatch(option -> option == StandardCopyOption.ATOMIC_MOVE)) {
+				throw new AtomicMoveNotSupportedException(source.toString(), target.toString(),
+						"Atomic moves between file systems are not supported.");
+			}
+			if (!(source instanceof SMBPath)) {
+				upload(source, SMBPath.fromPath(target), replaceExisting, true, options);
+			} else {
+				download(SMBPath.fromPath(source), target, replaceExisting, true, options);
+			}
+			Files.delete(source);
+			return;
+		}
+
+		SMBPath smbSource = SMBPath.fromPath(source);
+		SMBPath smbTarget = SMBPath.fromPath(target);
+		smbSource.call(smbTarget, "move",
 				(share, relativePath, shareOther, relativePathOther) -> {
 					if (share.equals(shareOther)) {
 						try (File file = share.openFile(relativePath, EnumSet.of(AccessMask.DELETE),
@@ -324,10 +582,8 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 								throw new FileSystemException(source.toString(), target.toString(),
 										exception.getMessage());
 							} catch (SMBApiException e) {
-								SMBFileSystem.LOGGER.debug("remote copy unsupported, fallback to streaming");
-								try (OutputStream os = fileOther.getOutputStream()) {
-									file.read(os);
-								}
+								SMBFileSystem.LOGGER.debug("remote copy unsupported, fallback to ranged copy");
+								copyRanges(file, fileOther, smbTarget.getFileSystem(), options);
 							}
 
 							if (copyAttributes) {
@@ -340,6 +596,97 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 					}
 
 				});
+		smbSource.getFileSystem().invalidateAttributeTree(smbSource);
+		smbTarget.getFileSystem().invalidateAttributeTree(smbTarget);
+	}
+
+	private static void upload(Path source, SMBPath target, boolean replaceExisting, boolean copyAttributes,
+			CopyOption... options) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+		if (attributes.isDirectory()) {
+			if (replaceExisting) {
+				Files.deleteIfExists(target);
+			}
+			Files.createDirectory(target);
+			return;
+		}
+
+		SMBFileSystem fileSystem = target.getFileSystem();
+		try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+			target.call("upload", (share, relativePath) -> {
+				try (File file = share.openFile(relativePath, EnumSet.of(AccessMask.GENERIC_WRITE),
+						EnumSet.of(FileAttributes.FILE_ATTRIBUTE_NORMAL), EnumSet.of(SMB2ShareAccess.FILE_SHARE_WRITE),
+						replaceExisting ? SMB2CreateDisposition.FILE_OVERWRITE_IF : SMB2CreateDisposition.FILE_CREATE,
+						EnumSet.noneOf(SMB2CreateOptions.class))) {
+					new SMBRangeCopy(fileSystem.getExecutor(), fileSystem.getCopyParallelism(),
+							SMBWriteBehind.getWriteSize(file), SMBCopyProgress.getListener(options))
+							.copy(SMBRangeCopy.source(channel), SMBRangeCopy.target(file), channel.size());
+
+					if (copyAttributes) {
+						file.setFileInformation(new FileBasicInformation(
+								com.hierynomus.msdtyp.FileTime.ofEpochMillis(attributes.creationTime().toMillis()),
+								com.hierynomus.msdtyp.FileTime.ofEpochMillis(attributes.lastAccessTime().toMillis()),
+								com.hierynomus.msdtyp.FileTime.ofEpochMillis(attributes.lastModifiedTime().toMillis()),
+								com.hierynomus.msdtyp.FileTime.ofEpochMillis(attributes.lastModifiedTime().toMillis()),
+								0));
+					}
+					return Void.TYPE;
+				}
+			});
+		} finally {
+			fileSystem.invalidateAttributes(target);
+		}
+	}
+
+	private static void download(SMBPath source, Path target, boolean replaceExisting, boolean copyAttributes,
+			CopyOption... options) throws IOException {
+		SMBFileSystem fileSystem = source.getFileSystem();
+		SMBFileAttributes attributes = fileSystem.readAttributes(source);
+		if (attributes.isDirectory()) {
+			if (replaceExisting) {
+				Files.deleteIfExists(target);
+			}
+			Files.createDirectory(target);
+			return;
+		}
+
+		Set<StandardOpenOption> openOptions = replaceExisting
+				? EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)
+				: EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+		try (FileChannel channel = FileChannel.open(target, openOptions)) {
+			source.call("download", (share, relativePath) -> {
+				try (File file = share.openFile(relativePath, EnumSet.of(AccessMask.GENERIC_READ),
+						EnumSet.of(FileAttributes.FILE_ATTRIBUTE_NORMAL), EnumSet.of(SMB2ShareAccess.FILE_SHARE_READ),
+						SMB2CreateDisposition.FILE_OPEN, EnumSet.noneOf(SMB2CreateOptions.class))) {
+					long size = file.getFileInformation(FileStandardInformation.class).getEndOfFile();
+					new SMBRangeCopy(fileSystem.getExecutor(), fileSystem.getCopyParallelism(),
+							SMBReadAhead.getReadSize(file), SMBCopyProgress.getListener(options))
+							.copy(SMBRangeCopy.source(file), SMBRangeCopy.target(channel), size);
+					return Void.TYPE;
+				}
+			});
+		}
+
+		if (copyAttributes) {
+			Files.getFileAttributeView(target, BasicFileAttributeView.class).setTimes(attributes.lastModifiedTime(),
+					attributes.lastAccessTime(), attributes.creationTime());
+		}
+	}
+
+	private static void copyRanges(File source, File target, SMBFileSystem fileSystem, CopyOption... options)
+			throws IOException {
+		long size = source.getFileInformation(FileStandardInformation.class).getEndOfFile();
+		new SMBRangeCopy(fileSystem.getExecutor(), fileSystem.getCopyParallelism(),
+				SMBRangeCopy.getChunkSize(source, target), SMBCopyProgress.getListener(options))
+				.copy(SMBRangeCopy.source(source), SMBRangeCopy.target(target), size);
+	}
+
+	public void walkFileTree(Path start, int maxDepth, int parallelism,
+			BiConsumer<Path, BasicFileAttributes> visitor) throws IOException {
+		SMBFileSystem.LOGGER.debug("walkFileTree start={}, maxDepth={}, parallelism={}", start, maxDepth,
+				parallelism);
+
+		new SMBTreeWalker(maxDepth, parallelism, visitor).walk(SMBPath.fromPath(start));
 	}
 
 	@Override
@@ -356,7 +703,8 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 		SMBFileSystem.LOGGER.debug("isHidden path={}", path);
 
 		FileBasicInformation fileBasicInformation = SMBPath.fromPath(path)
-				.call((share, relativePath) -> share.getFileInformation(relativePath, FileBasicInformation.class));
+				.call("isHidden", (share, relativePath) -> SMBShareOperations.queryInformation(share, relativePath,
+						FileBasicInformation.class));
 		return (fileBasicInformation.getFileAttributes() & FileAttributes.FILE_ATTRIBUTE_HIDDEN.getValue()) != 0;
 	}
 
@@ -375,11 +723,9 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 			}
 		}
 
-		SMBPath.fromPath(path).call((share, relativePath) -> {
-			try (DiskEntry entry = share.open(relativePath, accessMask, EnumSet.of(FILE_ATTRIBUTE_NORMAL),
-					SMB2ShareAccess.ALL, SMB2CreateDisposition.FILE_OPEN, EnumSet.noneOf(SMB2CreateOptions.class))) {
-				return Void.TYPE;
-			}
+		SMBPath.fromPath(path).call("checkAccess", (share, relativePath) -> {
+			SMBShareOperations.checkAccess(share, relativePath, accessMask);
+			return Void.TYPE;
 		});
 	}
 
@@ -397,8 +743,11 @@ public final class SMBFileSystemProvider extends FileSystemProvider {
 			throws IOException {
 		SMBFileSystem.LOGGER.debug("readAttributes path={}, type={}, options={}", path, type, options);
 
-		return type.isAssignableFrom(SMBFileAttributes.class) ? type.cast(new SMBFileAttributes(SMBPath.fromPath(path)))
-				: null;
+		if (!type.isAssignableFrom(SMBFileAttributes.class)) {
+			return null;
+		}
+		SMBPath smbPath = SMBPath.fromPath(path);
+		return type.cast(smbPath.getFileSystem().readAttributes(smbPath));
 	}
 
 	@Override
@@ -0,0 +1,74 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Remembers the generation at which paths and trees were last invalidated, so that a put racing an invalidation is
+// only dropped for the affected path. Only the most recent invalidations are kept, a put older than the oldest one
+// still remembered is dropped as well. Callers synchronize.
+final class SMBInvalidations {
+
+	private static final int CAPACITY = 1024;
+
+	private final class Invalidated extends LinkedHashMap<String, Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+			if (size() <= CAPACITY) {
+				return false;
+			}
+			SMBInvalidations.this.forgotten = Math.max(SMBInvalidations.this.forgotten, eldest.getValue());
+			return true;
+		}
+
+	}
+
+	private final Map<String, Long> paths = new Invalidated();
+
+	private final Map<String, Long> trees = new Invalidated();
+
+	private long generation = 0;
+
+	private long forgotten = 0;
+
+	long getGeneration() {
+		return this.generation;
+	}
+
+	void invalidate(String key) {
+		this.generation++;
+		record(this.paths, key);
+	}
+
+	void invalidateTree(String key) {
+		this.generation++;
+		record(this.trees, key);
+	}
+
+	boolean isCurrent(String key, long generation) {
+		if (this.forgotten > generation || this.paths.getOrDefault(key, 0L) > generation) {
+			return false;
+		}
+		for (String candidate = key;; candidate = parentKey(candidate)) {
+			if (this.trees.getOrDefault(candidate, 0L) > generation) {
+				return false;
+			}
+			if (candidate.equals(SMBFileSystem.PATH_SEPARATOR)) {
+				return true;
+			}
+		}
+	}
+
+	private void record(Map<String, Long> invalidated, String key) {
+		invalidated.remove(key);
+		invalidated.put(key, this.generation);
+	}
+
+	static String parentKey(String key) {
+		int separator = key.lastIndexOf(SMBFileSystem.PATH_SEPARATOR);
+		return separator <= 0 ? SMBFileSystem.PATH_SEPARATOR : key.substring(0, separator);
+	}
+
+}
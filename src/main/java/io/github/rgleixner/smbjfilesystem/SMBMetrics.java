@@ -0,0 +1,17 @@
+package io.github.rgleixner.smbjfilesystem;
+
+public interface SMBMetrics {
+
+	SMBMetrics NOOP = new SMBMetrics() {
+	};
+
+	default void recordOperation(String share, String operation, long durationNanos, boolean success) {
+	}
+
+	default void recordBytes(String share, String operation, long bytes) {
+	}
+
+	default void recordShareWait(String share, long durationNanos) {
+	}
+
+}
@@ -0,0 +1,23 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.util.Map;
+
+public interface SMBMetricsMXBean {
+
+	Map<String, Long> getOperationCounts();
+
+	Map<String, Long> getErrorCounts();
+
+	Map<String, Long> getBytesTransferred();
+
+	Map<String, Double> getMeanLatencyMillis();
+
+	Map<String, Double> getLatencyPercentileMillis(double percentile);
+
+	long getShareWaitCount();
+
+	double getMeanShareWaitMillis();
+
+	void reset();
+
+}
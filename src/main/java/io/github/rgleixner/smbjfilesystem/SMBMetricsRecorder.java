@@ -0,0 +1,144 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+public final class SMBMetricsRecorder implements SMBMetrics, SMBMetricsMXBean {
+
+	private static final int BUCKETS = 40;
+
+	private static final class OperationStatistics {
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder errors = new LongAdder();
+
+		private final LongAdder totalNanos = new LongAdder();
+
+		private final LongAdder bytes = new LongAdder();
+
+		private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+		private double percentileMillis(double percentile) {
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				total += this.histogram.get(i);
+			}
+			long threshold = (long) Math.ceil(total * percentile / 100);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += this.histogram.get(i);
+				if (seen >= threshold && seen > 0) {
+					return (1L << (i + 1)) / 1_000_000.0;
+				}
+			}
+			return 0;
+		}
+
+	}
+
+	private final ConcurrentMap<String, OperationStatistics> operations = new ConcurrentHashMap<>();
+
+	private final LongAdder shareWaitCount = new LongAdder();
+
+	private final LongAdder shareWaitNanos = new LongAdder();
+
+	@Override
+	public void recordOperation(String share, String operation, long durationNanos, boolean success) {
+		OperationStatistics statistics = statistics(operation);
+		statistics.count.increment();
+		statistics.totalNanos.add(durationNanos);
+		if (!success) {
+			statistics.errors.increment();
+		}
+		int bucket = durationNanos <= 1 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(durationNanos));
+		statistics.histogram.incrementAndGet(bucket);
+	}
+
+	@Override
+	public void recordBytes(String share, String operation, long bytes) {
+		statistics(operation).bytes.add(bytes);
+	}
+
+	@Override
+	public void recordShareWait(String share, long durationNanos) {
+		this.shareWaitCount.increment();
+		this.shareWaitNanos.add(durationNanos);
+	}
+
+	private OperationStatistics statistics(String operation) {
+		OperationStatistics statistics = this.operations.get(operation);
+		if (statistics == null) {
+			statistics = this.operations.computeIfAbsent(operation, key -> new OperationStatistics());
+		}
+		return statistics;
+	}
+
+	@Override
+	public Map<String, Long> getOperationCounts() {
+		return collect(statistics -> statistics.count.sum());
+	}
+
+	@Override
+	public Map<String, Long> getErrorCounts() {
+		return collect(statistics -> statistics.errors.sum());
+	}
+
+	@Override
+	public Map<String, Long> getBytesTransferred() {
+		return collect(statistics -> statistics.bytes.sum());
+	}
+
+	@Override
+	public Map<String, Double> getMeanLatencyMillis() {
+		return collectDouble(statistics -> {
+			long count = statistics.count.sum();
+			return count == 0 ? 0 : statistics.totalNanos.sum() / 1_000_000.0 / count;
+		});
+	}
+
+	@Override
+	public Map<String, Double> getLatencyPercentileMillis(double percentile) {
+		if (percentile <= 0 || percentile > 100) {
+			throw new IllegalArgumentException("The percentile must be in (0, 100].");
+		}
+		return collectDouble(statistics -> statistics.percentileMillis(percentile));
+	}
+
+	@Override
+	public long getShareWaitCount() {
+		return this.shareWaitCount.sum();
+	}
+
+	@Override
+	public double getMeanShareWaitMillis() {
+		long count = this.shareWaitCount.sum();
+		return count == 0 ? 0 : this.shareWaitNanos.sum() / 1_000_000.0 / count;
+	}
+
+	@Override
+	public void reset() {
+		this.operations.clear();
+		this.shareWaitCount.reset();
+		this.shareWaitNanos.reset();
+	}
+
+	private Map<String, Long> collect(ToLongFunction<OperationStatistics> value) {
+		Map<String, Long> result = new TreeMap<>();
+		this.operations.forEach((operation, statistics) -> result.put(operation, value.applyAsLong(statistics)));
+		return result;
+	}
+
+	private Map<String, Double> collectDouble(ToDoubleFunction<OperationStatistics> value) {
+		Map<String, Double> result = new TreeMap<>();
+		this.operations.forEach((operation, statistics) -> result.put(operation, value.applyAsDouble(statistics)));
+		return result;
+	}
+
+}
@@ -5,6 +5,7 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
@@ -12,7 +13,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Stream;
 
 import io.github.rgleixner.smbjfilesystem.SMBFileSystem.DiskShareAction;
 import io.github.rgleixner.smbjfilesystem.SMBFileSystem.DiskShareAction2;
@@ -23,10 +23,20 @@ public final class SMBPath implements Path {
 
 	private final String[] components;
 
+	private final int offset;
+
+	private final int count;
+
 	private final boolean absolute;
 
 	private final boolean folder;
 
+	private final SMBFileAttributes attributes;
+
+	private String string;
+
+	private int hash;
+
 	static SMBPath fromPath(Path path) {
 		if (!(path instanceof SMBPath)) {
 			throw new IllegalArgumentException("The provided path '" + path.toString() + "' is not an SMB path.");
@@ -37,19 +47,57 @@ public final class SMBPath implements Path {
 	SMBPath(SMBFileSystem fileSystem, String path) {
 		this.fileSystem = fileSystem;
 		this.components = SMBPathUtil.splitPath(path);
+		this.offset = 0;
+		this.count = this.components.length;
 		this.absolute = SMBPathUtil.isAbsolutePath(path);
 		this.folder = SMBPathUtil.isFolder(path);
+		this.attributes = null;
 	}
 
 	SMBPath(SMBFileSystem fileSystem, String first, String... more) {
-		String[] result = Stream.concat(Arrays.stream(new String[] { first }), Arrays.stream(more))
-				.toArray(String[]::new);
-		String path = SMBPathUtil.mergePath(result, 0, result.length, false, result[result.length - 1].endsWith("/"));
+		this(fileSystem, more.length == 0 ? first : merge(first, more));
+	}
 
+	private SMBPath(SMBFileSystem fileSystem, String[] components, int offset, int count, boolean absolute,
+			boolean folder) {
 		this.fileSystem = fileSystem;
-		this.components = SMBPathUtil.splitPath(path);
-		this.absolute = SMBPathUtil.isAbsolutePath(path);
-		this.folder = SMBPathUtil.isFolder(path);
+		this.components = components;
+		this.offset = offset;
+		this.count = count;
+		this.absolute = absolute;
+		this.folder = folder;
+		this.attributes = null;
+	}
+
+	private SMBPath(SMBPath path, SMBFileAttributes attributes) {
+		this.fileSystem = path.fileSystem;
+		this.components = path.components;
+		this.offset = path.offset;
+		this.count = path.count;
+		this.absolute = path.absolute;
+		this.folder = path.folder;
+		this.attributes = attributes;
+		this.string = path.string;
+		this.hash = path.hash;
+	}
+
+	private static String merge(String first, String[] more) {
+		String[] result = new String[more.length + 1];
+		result[0] = first;
+		System.arraycopy(more, 0, result, 1, more.length);
+		return SMBPathUtil.mergePath(result, 0, result.length, false, result[result.length - 1].endsWith("/"));
+	}
+
+	private SMBPath create(String[] components, int offset, int count, boolean absolute, boolean folder) {
+		boolean parse = count == 0;
+		for (int i = offset; i < offset + count && !parse; i++) {
+			parse = components[i].isEmpty();
+		}
+		if (parse) {
+			return new SMBPath(this.fileSystem,
+					SMBPathUtil.mergePath(components, offset, offset + count, absolute, folder));
+		}
+		return new SMBPath(this.fileSystem, components, offset, count, absolute, folder);
 	}
 
 	@Override
@@ -72,90 +120,98 @@ public final class SMBPath implements Path {
 
 	@Override
 	public Path getFileName() {
-		return new SMBPath(this.fileSystem, this.components[this.components.length - 1]);
+		if (this.count == 0) {
+			return null;
+		}
+		return create(this.components, this.offset + this.count - 1, 1, false, false);
 	}
 
 	@Override
 	public Path getParent() {
-		if (this.components.length <= 1) {
+		if (this.count <= 1) {
 			return null;
 		}
-		String reduced = SMBPathUtil.mergePath(this.components, 0, this.components.length - 1, this.absolute, true);
-		return new SMBPath(this.fileSystem, reduced);
+		return create(this.components, this.offset, this.count - 1, this.absolute, true);
 	}
 
 	@Override
 	public int getNameCount() {
-		return this.components.length;
+		return this.count;
 	}
 
 	@Override
 	public Path getName(int index) {
-		if (index < 0 || index > this.components.length) {
+		if (index < 0 || index >= this.count) {
 			throw new IllegalArgumentException("The provided index is out of bounds.");
 		}
-		String reduced = SMBPathUtil.mergePath(this.components, index, index + 1, false,
-				index == this.components.length - 1 && this.folder);
-		return new SMBPath(this.fileSystem, reduced);
+		return create(this.components, this.offset + index, 1, false, index == this.count - 1 && this.folder);
 	}
 
 	@Override
 	public Path subpath(int beginIndex, int endIndex) {
-		if (beginIndex < 0 || endIndex > this.components.length) {
+		if (beginIndex < 0 || endIndex > this.count) {
 			throw new IllegalArgumentException("Index out of bounds.");
 		}
 		if (beginIndex > endIndex) {
 			throw new IllegalArgumentException("beginIndex must be smaller than endIndex.");
 		}
-		String reduced = SMBPathUtil.mergePath(this.components, beginIndex, endIndex, false,
-				endIndex == this.components.length - 1 && this.folder);
-		return new SMBPath(this.fileSystem, reduced);
+		return create(this.components, this.offset + beginIndex, endIndex - beginIndex, false,
+				endIndex == this.count - 1 && this.folder);
 	}
 
 	@Override
 	public boolean startsWith(Path other) {
-		String path = SMBPathUtil.mergePath(this.components, 0, this.components.length, this.absolute, this.folder);
-		return path.startsWith(other.toString());
+		return toString().startsWith(other.toString());
 	}
 
 	@Override
 	public boolean endsWith(Path other) {
-		String path = SMBPathUtil.mergePath(this.components, 0, this.components.length, this.absolute, this.folder);
-		return path.endsWith(other.toString());
+		return toString().endsWith(other.toString());
 	}
 
 	@Override
 	public Path normalize() {
-		ArrayList<String> normalized = new ArrayList<>();
-		for (final String component : this.components) {
-			if (component.equals(".")) {
+		ArrayList<String> normalized = null;
+		for (int i = 0; i < this.count; i++) {
+			String component = this.components[this.offset + i];
+			boolean dot = component.equals(".");
+			boolean dotDot = component.equals("..");
+			if (normalized == null) {
+				if (!dot && !dotDot) {
+					continue;
+				}
+				normalized = new ArrayList<>(this.count);
+				normalized.addAll(Arrays.asList(this.components).subList(this.offset, this.offset + i));
+			}
+			if (dot) {
 				continue;
-			} else if (component.equals("..") && normalized.size() > 1) {
+			} else if (dotDot && normalized.size() > 1) {
 				normalized.remove(normalized.size() - 1);
-			} else if (component.equals("..") && normalized.size() > 0) {
+			} else if (dotDot && normalized.size() > 0) {
 				continue;
 			} else {
 				normalized.add(component);
 			}
 		}
-		String path = SMBPathUtil.mergePath(normalized.toArray(new String[0]), 0, normalized.size(), this.absolute,
-				this.folder);
-		return new SMBPath(this.fileSystem, path);
+		if (normalized == null) {
+			return create(this.components, this.offset, this.count, this.absolute, this.folder);
+		}
+		String[] array = normalized.toArray(new String[0]);
+		return create(array, 0, array.length, this.absolute, this.folder);
 	}
 
 	@Override
 	public Path resolve(Path other) {
-		assertPath(other);
+		SMBPath target = assertPath(other);
 
-		if (other.isAbsolute()) {
-			return other;
+		if (target.isAbsolute()) {
+			return target;
 		}
 
-		String[] result = new String[other.getNameCount() + this.getNameCount()];
-		System.arraycopy(this.components, 0, result, 0, this.getNameCount());
-		System.arraycopy(((SMBPath) other).components, 0, result, this.getNameCount(), other.getNameCount());
-		String path = SMBPathUtil.mergePath(result, 0, result.length, this.absolute, ((SMBPath) other).folder);
-		return new SMBPath(this.fileSystem, path);
+		String[] result = new String[this.count + target.count];
+		System.arraycopy(this.components, this.offset, result, 0, this.count);
+		System.arraycopy(target.components, target.offset, result, this.count, target.count);
+		return create(result, 0, result.length, this.absolute, target.folder);
 	}
 
 	@Override
@@ -165,10 +221,10 @@ public final class SMBPath implements Path {
 		boolean common = true;
 		int lastIndex = 0;
 		final List<String> newPath = new ArrayList<>();
-		for (int i = 0; i < this.components.length; i++) {
+		for (int i = 0; i < this.count; i++) {
 			if (common) {
-				if (i < target.components.length) {
-					if (this.components[i].equals(target.components[i])) {
+				if (i < target.count) {
+					if (this.components[this.offset + i].equals(target.components[target.offset + i])) {
 						lastIndex++;
 					} else {
 						common = false;
@@ -183,19 +239,18 @@ public final class SMBPath implements Path {
 			}
 		}
 
-		if (lastIndex < target.components.length) {
-			newPath.addAll(Arrays.asList(target.components).subList(lastIndex, target.components.length));
+		if (lastIndex < target.count) {
+			newPath.addAll(
+					Arrays.asList(target.components).subList(target.offset + lastIndex, target.offset + target.count));
 		}
 
-		String[] array = new String[newPath.size()];
-		String path = SMBPathUtil.mergePath(newPath.toArray(array), 0, newPath.size(), false, target.folder);
-		return new SMBPath(this.fileSystem, path);
+		String[] array = newPath.toArray(new String[0]);
+		return create(array, 0, array.length, false, target.folder);
 	}
 
 	@Override
 	public URI toUri() {
-		String path = SMBPathUtil.mergePath(this.components, 0, this.components.length, this.absolute, this.folder);
-		return URI.create(this.fileSystem.getFQN() + SMBPathUtil.encodePath(path, StandardCharsets.UTF_8));
+		return URI.create(this.fileSystem.getFQN() + SMBPathUtil.encodePath(toString(), StandardCharsets.UTF_8));
 	}
 
 	@Override
@@ -203,17 +258,12 @@ public final class SMBPath implements Path {
 		if (this.isAbsolute()) {
 			return this;
 		}
-		return new SMBPath(this.fileSystem, SMBFileSystem.PATH_SEPARATOR).resolve(this);
+		return create(this.components, this.offset, this.count, true, this.folder);
 	}
 
 	@Override
 	public int compareTo(Path other) {
-		assertPath(other);
-
-		String path = SMBPathUtil.mergePath(this.components, 0, this.components.length, this.absolute, this.folder);
-		String otherPath = SMBPathUtil.mergePath(((SMBPath) other).components, 0, ((SMBPath) other).components.length,
-				((SMBPath) other).absolute, ((SMBPath) other).folder);
-		return path.compareTo(otherPath);
+		return toString().compareTo(assertPath(other).toString());
 	}
 
 	@Override
@@ -222,26 +272,60 @@ public final class SMBPath implements Path {
 	}
 
 	@Override
-	public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers) {
-		throw new UnsupportedOperationException("FileWatchers are currently not supported.");
+	public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers)
+			throws IOException {
+		if (!(watcher instanceof SMBWatchService)) {
+			throw new ProviderMismatchException("The watch service must be an SMBWatchService.");
+		}
+		return ((SMBWatchService) watcher).register(this, events, modifiers);
 	}
 
 	@Override
-	public WatchKey register(WatchService watcher, WatchEvent.Kind<?>... events) {
-		throw new UnsupportedOperationException("FileWatchers are currently not supported.");
+	public WatchKey register(WatchService watcher, WatchEvent.Kind<?>... events) throws IOException {
+		return register(watcher, events, new WatchEvent.Modifier[0]);
 	}
 
 	@Override
 	public String toString() {
-		return SMBPathUtil.mergePath(this.components, 0, this.components.length, this.absolute, this.folder);
+		String result = this.string;
+		if (result == null) {
+			if (this.count == 0) {
+				result = "";
+			} else {
+				StringBuilder builder = new StringBuilder();
+				if (this.absolute) {
+					builder.append(SMBFileSystem.PATH_SEPARATOR);
+				}
+				for (int i = 0; i < this.count; i++) {
+					if (i > 0) {
+						builder.append(SMBFileSystem.PATH_SEPARATOR);
+					}
+					builder.append(this.components[this.offset + i]);
+				}
+				if (this.folder) {
+					builder.append(SMBFileSystem.PATH_SEPARATOR);
+				}
+				result = builder.toString();
+			}
+			this.string = result;
+		}
+		return result;
 	}
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.hashCode(components);
-		result = prime * result + Objects.hash(fileSystem, absolute, folder);
+		int result = this.hash;
+		if (result == 0) {
+			int componentsHash = 1;
+			for (int i = 0; i < this.count; i++) {
+				componentsHash = 31 * componentsHash + this.components[this.offset + i].hashCode();
+			}
+			final int prime = 31;
+			result = 1;
+			result = prime * result + componentsHash;
+			result = prime * result + Objects.hash(fileSystem, absolute, folder);
+			this.hash = result;
+		}
 		return result;
 	}
 
@@ -254,8 +338,9 @@ public final class SMBPath implements Path {
 			return false;
 		}
 		SMBPath other = (SMBPath) obj;
-		return Objects.equals(fileSystem, other.fileSystem) && Arrays.equals(components, other.components)
-				&& absolute == other.absolute && folder == other.folder;
+		return Objects.equals(fileSystem, other.fileSystem) && absolute == other.absolute && folder == other.folder
+				&& Arrays.equals(components, offset, offset + count, other.components, other.offset,
+						other.offset + other.count);
 	}
 
 	private SMBPath assertPath(Path other) {
@@ -268,12 +353,20 @@ public final class SMBPath implements Path {
 		return (SMBPath) other;
 	}
 
-	<T> T call(DiskShareAction<T> action) throws IOException {
-		return getFileSystem().call(this, action);
+	SMBPath withAttributes(SMBFileAttributes attributes) {
+		return new SMBPath(this, attributes);
+	}
+
+	SMBFileAttributes getAttributes() {
+		return attributes;
+	}
+
+	<T> T call(String operation, DiskShareAction<T> action) throws IOException {
+		return getFileSystem().call(this, operation, action);
 	}
 
-	<T> T call(SMBPath other, DiskShareAction2<T> action) throws IOException {
-		return getFileSystem().call(this, other, action);
+	<T> T call(SMBPath other, String operation, DiskShareAction2<T> action) throws IOException {
+		return getFileSystem().call(this, other, operation, action);
 	}
 
 }
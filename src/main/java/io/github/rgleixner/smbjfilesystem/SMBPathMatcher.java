@@ -1,109 +1,235 @@
 package io.github.rgleixner.smbjfilesystem;
 
+import java.nio.file.DirectoryStream;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
-public final class SMBPathMatcher implements PathMatcher {
+public final class SMBPathMatcher implements PathMatcher, DirectoryStream.Filter<Path> {
 
-	private final String pattern;
+	enum Kind {
+		EXACT, PREFIX, SUFFIX, REGEX
+	}
+
+	private static final String GLOB_META_CHARS = "\\*?[]{}";
+
+	private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+
+	private final Kind kind;
+
+	private final String literal;
 
-	SMBPathMatcher(String pattern) {
-		if (pattern.startsWith("glob:")) {
-			this.pattern = globToRegex(pattern.replaceFirst("glob:", ""));
-		} else if (pattern.startsWith("regex:")) {
-			this.pattern = pattern.replaceFirst("regex:", "");
+	private final boolean crossesDirectories;
+
+	private final Pattern pattern;
+
+	private final String searchPattern;
+
+	SMBPathMatcher(String syntaxAndPattern) {
+		String glob = null;
+		String regex;
+		if (syntaxAndPattern.startsWith("glob:")) {
+			glob = syntaxAndPattern.substring("glob:".length());
+			regex = globToRegex(glob);
+		} else if (syntaxAndPattern.startsWith("regex:")) {
+			regex = syntaxAndPattern.substring("regex:".length());
 		} else {
-			this.pattern = pattern;
+			regex = syntaxAndPattern;
 		}
+
+		this.searchPattern = glob == null ? null : globToSearchPattern(glob);
+		if (glob != null && isLiteral(glob, 0, glob.length())) {
+			this.kind = Kind.EXACT;
+			this.literal = glob;
+			this.crossesDirectories = false;
+		} else if (glob != null && glob.startsWith("**") && isLiteral(glob, 2, glob.length())) {
+			this.kind = Kind.SUFFIX;
+			this.literal = glob.substring(2);
+			this.crossesDirectories = true;
+		} else if (glob != null && glob.startsWith("*") && isLiteral(glob, 1, glob.length())
+				&& glob.indexOf('/') < 0) {
+			this.kind = Kind.SUFFIX;
+			this.literal = glob.substring(1);
+			this.crossesDirectories = false;
+		} else if (glob != null && glob.endsWith("**") && isLiteral(glob, 0, glob.length() - 2)) {
+			this.kind = Kind.PREFIX;
+			this.literal = glob.substring(0, glob.length() - 2);
+			this.crossesDirectories = true;
+		} else if (glob != null && glob.endsWith("*") && isLiteral(glob, 0, glob.length() - 1)) {
+			this.kind = Kind.PREFIX;
+			this.literal = glob.substring(0, glob.length() - 1);
+			this.crossesDirectories = false;
+		} else {
+			this.kind = Kind.REGEX;
+			this.literal = null;
+			this.crossesDirectories = false;
+		}
+		this.pattern = Pattern.compile(regex);
 	}
 
-	private static String globToRegex(String globPattern) {
-		globPattern = globPattern.trim();
-		if (globPattern.endsWith("*")) {
-			globPattern = globPattern.substring(0, globPattern.length() - 1);
+	private static boolean isLiteral(String glob, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (GLOB_META_CHARS.indexOf(glob.charAt(i)) >= 0) {
+				return false;
+			}
 		}
-		StringBuilder sb = new StringBuilder(globPattern.length());
+		return true;
+	}
 
-		boolean escaping = false;
-		int inCurlies = 0;
+	static String globToSearchPattern(String globPattern) {
+		if (globPattern.isEmpty() || globPattern.contains("**")) {
+			return null;
+		}
 		for (char currentChar : globPattern.toCharArray()) {
 			switch (currentChar) {
+			case '[':
+			case ']':
+			case '{':
+			case '}':
+			case '\\':
+			case '/':
+			case '<':
+			case '>':
+			case '"':
+				return null;
+			default:
+				break;
+			}
+		}
+		return globPattern;
+	}
+
+	static String globToRegex(String globPattern) {
+		StringBuilder sb = new StringBuilder(globPattern.length() * 2);
+		boolean inGroup = false;
+		int length = globPattern.length();
+		int i = 0;
+		while (i < length) {
+			char currentChar = globPattern.charAt(i++);
+			switch (currentChar) {
+			case '\\':
+				if (i == length) {
+					throw new PatternSyntaxException("No character to escape", globPattern, i - 1);
+				}
+				appendEscaped(sb, globPattern.charAt(i++));
+				break;
 			case '*':
-				if (escaping) {
-					sb.append("\\*");
-				} else {
+				if (i < length && globPattern.charAt(i) == '*') {
 					sb.append(".*");
+					i++;
+				} else {
+					sb.append("[^/]*");
 				}
-				escaping = false;
 				break;
 			case '?':
-				if (escaping) {
-					sb.append("\\?");
-				} else {
-					sb.append('.');
-				}
-				escaping = false;
+				sb.append("[^/]");
 				break;
-			case '.':
-			case '(':
-			case ')':
-			case '+':
-			case '|':
-			case '^':
-			case '$':
-			case '@':
-			case '%':
-				sb.append('\\');
-				sb.append(currentChar);
-				escaping = false;
-				break;
-			case '\\':
-				if (escaping) {
-					sb.append("\\\\");
-					escaping = false;
-				} else {
-					escaping = true;
-				}
+			case '[':
+				i = appendBracketExpression(sb, globPattern, i);
 				break;
 			case '{':
-				if (escaping) {
-					sb.append("\\{");
-				} else {
-					sb.append('(');
-					inCurlies++;
+				if (inGroup) {
+					throw new PatternSyntaxException("Cannot nest groups", globPattern, i - 1);
 				}
-				escaping = false;
+				sb.append("(?:(?:");
+				inGroup = true;
 				break;
 			case '}':
-				if (inCurlies > 0 && !escaping) {
-					sb.append(')');
-					inCurlies--;
-				} else if (escaping) {
-					sb.append("\\}");
+				if (inGroup) {
+					sb.append("))");
+					inGroup = false;
 				} else {
-					sb.append("}");
+					sb.append("\\}");
 				}
-				escaping = false;
 				break;
 			case ',':
-				if (inCurlies > 0 && !escaping) {
-					sb.append('|');
-				} else if (escaping) {
-					sb.append("\\,");
-				} else {
-					sb.append(",");
-				}
+				sb.append(inGroup ? ")|(?:" : ",");
 				break;
 			default:
-				escaping = false;
-				sb.append(currentChar);
+				appendEscaped(sb, currentChar);
 			}
 		}
+		if (inGroup) {
+			throw new PatternSyntaxException("Missing '}'", globPattern, length - 1);
+		}
 		return sb.toString();
 	}
 
+	private static int appendBracketExpression(StringBuilder sb, String globPattern, int start) {
+		int length = globPattern.length();
+		int i = start;
+		sb.append("[[^/]&&[");
+		if (i < length && globPattern.charAt(i) == '!') {
+			sb.append('^');
+			i++;
+		} else if (i < length && globPattern.charAt(i) == '^') {
+			sb.append("\\^");
+			i++;
+		}
+		boolean first = true;
+		while (i < length) {
+			char currentChar = globPattern.charAt(i++);
+			if (currentChar == ']' && !first) {
+				sb.append("]]");
+				return i;
+			}
+			first = false;
+			if (currentChar == '/') {
+				throw new PatternSyntaxException("Explicit 'name separator' in class", globPattern, i - 1);
+			}
+			if (currentChar == '\\' || currentChar == '[' || currentChar == '&' || currentChar == ']') {
+				sb.append('\\');
+			}
+			sb.append(currentChar);
+		}
+		throw new PatternSyntaxException("Missing ']'", globPattern, length - 1);
+	}
+
+	private static void appendEscaped(StringBuilder sb, char currentChar) {
+		if (REGEX_META_CHARS.indexOf(currentChar) >= 0) {
+			sb.append('\\');
+		}
+		sb.append(currentChar);
+	}
+
 	@Override
 	public boolean matches(Path path) {
-		return path.normalize().toString().matches(this.pattern);
+		return matches(path.toString());
+	}
+
+	boolean matches(String path) {
+		switch (this.kind) {
+		case EXACT:
+			return path.equals(this.literal);
+		case PREFIX:
+			return path.startsWith(this.literal)
+					&& (this.crossesDirectories || path.indexOf('/', this.literal.length()) < 0);
+		case SUFFIX:
+			return path.endsWith(this.literal) && (this.crossesDirectories || path.indexOf('/') < 0);
+		default:
+			return this.pattern.matcher(path).matches();
+		}
+	}
+
+	@Override
+	public boolean accept(Path entry) {
+		return matches(entry.getFileName());
+	}
+
+	Kind getKind() {
+		return kind;
+	}
+
+	String getLiteral() {
+		return literal;
+	}
+
+	Pattern getPattern() {
+		return pattern;
+	}
+
+	String getSearchPattern() {
+		return searchPattern;
 	}
 }
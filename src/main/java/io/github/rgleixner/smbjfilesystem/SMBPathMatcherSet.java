@@ -0,0 +1,74 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public final class SMBPathMatcherSet implements PathMatcher {
+
+	// backreferences, named groups and inline flags change meaning or clash once patterns share one alternation
+	private static final Pattern UNSHAREABLE = Pattern.compile("\\\\(?:[1-9]|k<)|\\(\\?(?:[a-zA-Z-]|<[a-zA-Z])");
+
+	private final Set<String> literals = new HashSet<>();
+
+	private final List<SMBPathMatcher> affixMatchers = new ArrayList<>();
+
+	private final Pattern pattern;
+
+	private final List<Pattern> separatePatterns = new ArrayList<>();
+
+	SMBPathMatcherSet(Collection<String> syntaxAndPatterns) {
+		StringBuilder regex = new StringBuilder();
+		for (String syntaxAndPattern : syntaxAndPatterns) {
+			SMBPathMatcher matcher = new SMBPathMatcher(syntaxAndPattern);
+			switch (matcher.getKind()) {
+			case EXACT:
+				this.literals.add(matcher.getLiteral());
+				break;
+			case PREFIX:
+			case SUFFIX:
+				this.affixMatchers.add(matcher);
+				break;
+			default:
+				String part = matcher.getPattern().pattern();
+				if (UNSHAREABLE.matcher(part).find()) {
+					this.separatePatterns.add(matcher.getPattern());
+					break;
+				}
+				if (regex.length() > 0) {
+					regex.append('|');
+				}
+				regex.append("(?:").append(part).append(')');
+			}
+		}
+		this.pattern = regex.length() > 0 ? Pattern.compile(regex.toString()) : null;
+	}
+
+	@Override
+	public boolean matches(Path path) {
+		String value = path.toString();
+		if (this.literals.contains(value)) {
+			return true;
+		}
+		for (SMBPathMatcher matcher : this.affixMatchers) {
+			if (matcher.matches(value)) {
+				return true;
+			}
+		}
+		if (this.pattern != null && this.pattern.matcher(value).matches()) {
+			return true;
+		}
+		for (Pattern separatePattern : this.separatePatterns) {
+			if (separatePattern.matcher(value).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -23,14 +23,32 @@ public final class SMBPathUtil {
 	}
 
 	public static String[] splitPath(String path) {
-		String[] split = path.split(SMBFileSystem.PATH_SEPARATOR);
-		if (split.length > 0 && split[0].equals("")) {
-			String[] truncated = new String[split.length - 1];
-			System.arraycopy(split, 1, truncated, 0, split.length - 1);
-			return truncated;
-		} else {
-			return split;
+		int end = path.length();
+		while (end > 0 && path.charAt(end - 1) == '/') {
+			end--;
+		}
+		if (end == 0) {
+			return new String[0];
+		}
+		int start = path.charAt(0) == '/' ? 1 : 0;
+
+		int count = 1;
+		for (int i = start; i < end; i++) {
+			if (path.charAt(i) == '/') {
+				count++;
+			}
+		}
+		String[] components = new String[count];
+		int index = 0;
+		int componentStart = start;
+		for (int i = start; i < end; i++) {
+			if (path.charAt(i) == '/') {
+				components[index++] = path.substring(componentStart, i);
+				componentStart = i + 1;
+			}
 		}
+		components[index] = path.substring(componentStart, end);
+		return components;
 	}
 
 	public static String mergePath(String[] components, int start, int end, boolean absolute, boolean folder) {
@@ -0,0 +1,159 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedFileSystemException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.hierynomus.smbj.ProgressListener;
+import com.hierynomus.smbj.share.File;
+
+final class SMBRangeCopy {
+
+	@FunctionalInterface
+	interface Source {
+
+		int read(byte[] buffer, long position, int offset, int length) throws IOException;
+
+	}
+
+	@FunctionalInterface
+	interface Target {
+
+		int write(byte[] buffer, long position, int offset, int length) throws IOException;
+
+	}
+
+	private final ExecutorService executor;
+
+	private final int parallelism;
+
+	private final int chunkSize;
+
+	private final ProgressListener progressListener;
+
+	private final Semaphore permits;
+
+	private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+	private long transferred;
+
+	SMBRangeCopy(ExecutorService executor, int parallelism, int chunkSize, ProgressListener progressListener) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be at least 1.");
+		}
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("The chunk size must be at least 1.");
+		}
+		this.executor = executor;
+		this.parallelism = parallelism;
+		this.chunkSize = chunkSize;
+		this.progressListener = progressListener;
+		this.permits = new Semaphore(parallelism);
+	}
+
+	static Source source(File file) {
+		return (buffer, position, offset, length) -> file.read(buffer, position, offset, length);
+	}
+
+	static Target target(File file) {
+		return (buffer, position, offset, length) -> (int) file.write(buffer, position, offset, length);
+	}
+
+	static Source source(FileChannel channel) {
+		return (buffer, position, offset, length) -> channel.read(ByteBuffer.wrap(buffer, offset, length), position);
+	}
+
+	static Target target(FileChannel channel) {
+		return (buffer, position, offset, length) -> channel.write(ByteBuffer.wrap(buffer, offset, length), position);
+	}
+
+	static int getChunkSize(File source, File target) {
+		return Math.min(SMBReadAhead.getReadSize(source), SMBWriteBehind.getWriteSize(target));
+	}
+
+	void copy(Source source, Target target, long size) throws IOException {
+		for (long position = 0; position < size && this.error.get() == null; position += this.chunkSize) {
+			try {
+				this.permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.error.compareAndSet(null, new InterruptedIOException("The copy was interrupted."));
+				break;
+			}
+
+			long chunkPosition = position;
+			int chunkLength = (int) Math.min(this.chunkSize, size - position);
+			try {
+				this.executor.execute(() -> {
+					try {
+						copyChunk(source, target, chunkPosition, chunkLength, size);
+					} catch (Throwable e) {
+						this.error.compareAndSet(null, e);
+					} finally {
+						this.permits.release();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				this.permits.release();
+				this.error.compareAndSet(null, new ClosedFileSystemException());
+			}
+		}
+		this.permits.acquireUninterruptibly(this.parallelism);
+		this.permits.release(this.parallelism);
+
+		Throwable failure = this.error.get();
+		if (failure instanceof IOException) {
+			throw (IOException) failure;
+		} else if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		} else if (failure != null) {
+			throw new IOException(failure);
+		}
+	}
+
+	private void copyChunk(Source source, Target target, long position, int length, long size) throws IOException {
+		byte[] buffer = new byte[length];
+		int read = 0;
+		while (read < length && this.error.get() == null) {
+			int count = source.read(buffer, position + read, read, length - read);
+			if (count < 0) {
+				break;
+			}
+			if (count == 0) {
+				throw new IOException("Short read at offset " + (position + read) + ": 0 of " + (length - read)
+						+ " bytes read.");
+			}
+			read += count;
+		}
+
+		int written = 0;
+		while (written < read && this.error.get() == null) {
+			int count = target.write(buffer, position + written, written, read - written);
+			if (count <= 0) {
+				throw new IOException("Short write at offset " + (position + written) + ": " + count + " of "
+						+ (read - written) + " bytes written.");
+			}
+			written += count;
+		}
+		progress(written, size);
+	}
+
+	private void progress(int count, long size) {
+		if (this.progressListener == null || count == 0) {
+			return;
+		}
+		synchronized (this) {
+			this.transferred += count;
+			this.progressListener.onProgressChanged(this.transferred, size);
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.hierynomus.smbj.share.File;
+import com.hierynomus.smbj.share.TreeConnect;
+
+final class SMBReadAhead {
+
+	private static final int SEQUENTIAL_THRESHOLD = 2;
+
+	private static final class Prefetch {
+
+		private final long offset;
+
+		private final Future<byte[]> data;
+
+		Prefetch(long offset, Future<byte[]> data) {
+			this.offset = offset;
+			this.data = data;
+		}
+
+	}
+
+	private final SMBFileHandle handle;
+
+	private final ExecutorService executor;
+
+	private final int depth;
+
+	private final int chunkSize;
+
+	private final Deque<Prefetch> prefetches = new ArrayDeque<>();
+
+	private long expectedPosition = 0;
+
+	private int sequentialReads = 0;
+
+	private long nextOffset = 0;
+
+	// offset at which a prefetch came back short, reads at or beyond it are answered without another round trip until
+	// the caller seeks below it or the channel changes the file
+	private long endOfFile = -1;
+
+	static int getReadSize(File file) {
+		TreeConnect treeConnect = file.getDiskShare().getTreeConnect();
+		return Math.min(treeConnect.getConfig().getReadBufferSize(),
+				treeConnect.getNegotiatedProtocol().getMaxReadSize());
+	}
+
+	SMBReadAhead(SMBFileHandle handle, ExecutorService executor, int depth) {
+		this.handle = handle;
+		this.executor = executor;
+		this.depth = depth;
+		this.chunkSize = getReadSize(handle.get());
+	}
+
+	int read(ByteBuffer dst, long position) throws IOException {
+		if (position != this.expectedPosition) {
+			this.sequentialReads = 0;
+			discard();
+			if (position < this.endOfFile) {
+				this.endOfFile = -1;
+			}
+		}
+
+		int read;
+		if (this.sequentialReads < SEQUENTIAL_THRESHOLD) {
+			this.sequentialReads++;
+			read = this.handle.read(dst, position);
+		} else {
+			read = readPrefetched(dst, position);
+		}
+
+		this.expectedPosition = read > 0 ? position + read : position;
+		return read;
+	}
+
+	void cancel() {
+		discard();
+		this.endOfFile = -1;
+	}
+
+	private void discard() {
+		for (Prefetch prefetch : this.prefetches) {
+			prefetch.data.cancel(false);
+		}
+		this.prefetches.clear();
+	}
+
+	private int readPrefetched(ByteBuffer dst, long position) throws IOException {
+		if (!dst.hasRemaining()) {
+			return 0;
+		}
+		if (this.endOfFile >= 0 && position >= this.endOfFile) {
+			return -1;
+		}
+		if (this.prefetches.isEmpty()) {
+			this.nextOffset = position;
+		}
+
+		int read = 0;
+		while (dst.hasRemaining() && this.endOfFile < 0) {
+			fill();
+			Prefetch head = this.prefetches.getFirst();
+			byte[] data = await(head);
+			int index = (int) (position + read - head.offset);
+			if (index < data.length) {
+				int length = Math.min(dst.remaining(), data.length - index);
+				dst.put(data, index, length);
+				read += length;
+			}
+			if (position + read >= head.offset + data.length) {
+				this.prefetches.removeFirst();
+				if (data.length < this.chunkSize) {
+					this.endOfFile = head.offset + data.length;
+					discard();
+				}
+			}
+		}
+		return read == 0 ? -1 : read;
+	}
+
+	private void fill() {
+		while (this.prefetches.size() < this.depth) {
+			long offset = this.nextOffset;
+			this.prefetches.addLast(new Prefetch(offset, this.executor.submit(() -> {
+				byte[] buffer = new byte[this.chunkSize];
+				int read = this.handle.run(file -> file.read(buffer, offset));
+				if (read < 0) {
+					return new byte[0];
+				}
+				return read == buffer.length ? buffer : Arrays.copyOf(buffer, read);
+			})));
+			this.nextOffset += this.chunkSize;
+		}
+	}
+
+	private byte[] await(Prefetch prefetch) throws IOException {
+		try {
+			return prefetch.data.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for read-ahead.");
+		} catch (ExecutionException e) {
+			discard();
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+}
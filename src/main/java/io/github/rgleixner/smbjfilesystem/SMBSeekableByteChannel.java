@@ -12,6 +12,7 @@ import java.util.Set;
 
 import com.hierynomus.msdtyp.AccessMask;
 import com.hierynomus.msfscc.FileAttributes;
+import com.hierynomus.msfscc.fileinformation.FileAllInformation;
 import com.hierynomus.msfscc.fileinformation.FileStandardInformation;
 import com.hierynomus.mssmb2.SMB2CreateDisposition;
 import com.hierynomus.mssmb2.SMB2CreateOptions;
@@ -20,35 +21,46 @@ import com.hierynomus.smbj.share.File;
 
 public final class SMBSeekableByteChannel implements SeekableByteChannel {
 
-	private final File file;
+	private final SMBPath path;
+
+	private final SMBFileHandle handle;
+
+	private final SMBContentCache contentCache;
+
+	private boolean contentChecked = false;
+
+	private byte[] content;
+
+	private SMBContentCache.Fill contentFill;
+
+	private final SMBReadAhead readAhead;
+
+	private final SMBWriteBehind writeBehind;
 
 	private volatile boolean open = true;
 
 	private volatile long position = 0;
 
+	private boolean modified = false;
+
+	private boolean unflushed = false;
+
 	SMBSeekableByteChannel(SMBPath path, Set<? extends OpenOption> options, FileAttribute<?>... attrs)
 			throws IOException {
 
-		if (options.contains(StandardOpenOption.DSYNC) || options.contains(StandardOpenOption.SYNC)
-				|| options.contains(StandardOpenOption.SPARSE)
-				|| options.contains(StandardOpenOption.DELETE_ON_CLOSE)) {
-			throw new UnsupportedOperationException(
-					"SMBFileSystemProvider does not support the options SYNC, DSYNC, SPARSE, DELETE_ON_CLOSE");
-		}
+		this.path = path;
+		this.handle = new SMBFileHandle(path, options);
+		this.contentCache = options.contains(StandardOpenOption.WRITE) ? null
+				: path.getFileSystem().getContentCache();
 
-		this.file = path.getFileSystem()
-				.call(path,
-						(share, relativePath) -> share.openFile(relativePath,
-								options.contains(StandardOpenOption.WRITE) ? EnumSet.of(AccessMask.GENERIC_WRITE)
-										: EnumSet.of(AccessMask.GENERIC_READ),
-								EnumSet.of(FileAttributes.FILE_ATTRIBUTE_NORMAL),
-								options.contains(StandardOpenOption.WRITE) ? EnumSet.of(SMB2ShareAccess.FILE_SHARE_READ)
-										: EnumSet.of(SMB2ShareAccess.FILE_SHARE_WRITE),
-								options.contains(StandardOpenOption.CREATE_NEW) ? SMB2CreateDisposition.FILE_CREATE
-										: (options.contains(StandardOpenOption.CREATE)
-												? SMB2CreateDisposition.FILE_OPEN_IF
-												: SMB2CreateDisposition.FILE_OPEN),
-								EnumSet.noneOf(SMB2CreateOptions.class)));
+		int readAheadDepth = path.getFileSystem().getReadAheadDepth();
+		this.readAhead = readAheadDepth > 0
+				? new SMBReadAhead(this.handle, path.getFileSystem().getExecutor(), readAheadDepth)
+				: null;
+		int writeBehindDepth = path.getFileSystem().getWriteBehindDepth();
+		this.writeBehind = writeBehindDepth > 0 && options.contains(StandardOpenOption.WRITE)
+				? new SMBWriteBehind(this.handle, writeBehindDepth)
+				: null;
 
 		if (options.contains(StandardOpenOption.WRITE)) {
 			if (options.contains(StandardOpenOption.TRUNCATE_EXISTING)) {
@@ -60,14 +72,98 @@ public final class SMBSeekableByteChannel implements SeekableByteChannel {
 		}
 	}
 
+	static File openFile(SMBPath path, Set<? extends OpenOption> options) throws IOException {
+		if (options.contains(StandardOpenOption.DSYNC) || options.contains(StandardOpenOption.SYNC)
+				|| options.contains(StandardOpenOption.SPARSE)
+				|| options.contains(StandardOpenOption.DELETE_ON_CLOSE)) {
+			throw new UnsupportedOperationException(
+					"SMBFileSystemProvider does not support the options SYNC, DSYNC, SPARSE, DELETE_ON_CLOSE");
+		}
+
+		return path.getFileSystem().call(path, "openFile",
+				(share, relativePath) -> share.openFile(relativePath,
+						options.contains(StandardOpenOption.WRITE)
+								? (options.contains(StandardOpenOption.READ)
+										? EnumSet.of(AccessMask.GENERIC_READ, AccessMask.GENERIC_WRITE)
+										: EnumSet.of(AccessMask.GENERIC_WRITE))
+								: EnumSet.of(AccessMask.GENERIC_READ),
+						EnumSet.of(FileAttributes.FILE_ATTRIBUTE_NORMAL),
+						options.contains(StandardOpenOption.WRITE) ? EnumSet.of(SMB2ShareAccess.FILE_SHARE_READ)
+								: EnumSet.of(SMB2ShareAccess.FILE_SHARE_WRITE),
+						options.contains(StandardOpenOption.CREATE_NEW) ? SMB2CreateDisposition.FILE_CREATE
+								: (options.contains(StandardOpenOption.CREATE) ? SMB2CreateDisposition.FILE_OPEN_IF
+										: SMB2CreateDisposition.FILE_OPEN),
+						EnumSet.noneOf(SMB2CreateOptions.class)));
+	}
+
+	private void checkContentCache() throws IOException {
+		this.contentChecked = true;
+		SMBFileAttributes known = this.path.getFileSystem().peekAttributes(this.path);
+		if (known != null && (known.isDirectory() || !this.contentCache.accepts(known.size()))) {
+			return;
+		}
+		long generation = this.contentCache.getGeneration();
+		FileAllInformation information = this.handle
+				.run(file -> file.getFileInformation(FileAllInformation.class));
+		if (information.getStandardInformation().isDirectory()) {
+			return;
+		}
+		long size = information.getStandardInformation().getEndOfFile();
+		long lastWriteTime = information.getBasicInformation().getLastWriteTime().getWindowsTimeStamp();
+		long changeTime = information.getBasicInformation().getChangeTime().getWindowsTimeStamp();
+		this.content = this.contentCache.get(this.path, size, lastWriteTime, changeTime);
+		if (this.content == null) {
+			this.contentFill = this.contentCache.fill(this.path, size, lastWriteTime, changeTime, generation);
+		} else if (this.readAhead != null) {
+			this.readAhead.cancel();
+		}
+	}
+
+	private void fillContentCache(ByteBuffer dst, int start, int read, long position) {
+		ByteBuffer data = dst.duplicate();
+		data.limit(start + read).position(start);
+		if (!this.contentFill.append(data, position) || this.contentFill.isComplete()) {
+			this.contentFill = null;
+		}
+	}
+
+	int getReadSize() {
+		return SMBReadAhead.getReadSize(this.handle.get());
+	}
+
+	int getWriteSize() {
+		return SMBWriteBehind.getWriteSize(this.handle.get());
+	}
+
 	@Override
 	public synchronized int read(ByteBuffer dst) throws IOException {
 		if (!this.open) {
 			throw new ClosedChannelException();
 		}
-		long offset = this.file.read(dst, position);
-		position += offset;
-		return (int) offset;
+		if (this.contentCache != null && !this.contentChecked) {
+			checkContentCache();
+		}
+		if (this.content != null) {
+			return readContent(dst);
+		}
+		flushWriteBehind();
+		int offset = dst.position();
+		long start = System.nanoTime();
+		int read = 0;
+		boolean success = false;
+		try {
+			read = this.readAhead != null ? this.readAhead.read(dst, position) : this.handle.read(dst, position);
+			success = true;
+		} finally {
+			this.path.getFileSystem().recordTransfer("read", start, Math.max(read, 0), success);
+		}
+		if (read > 0) {
+			if (this.contentFill != null) {
+				fillContentCache(dst, offset, read, position);
+			}
+			position += read;
+		}
+		return read;
 	}
 
 	@Override
@@ -75,7 +171,26 @@ public final class SMBSeekableByteChannel implements SeekableByteChannel {
 		if (!this.open) {
 			throw new ClosedChannelException();
 		}
-		long offset = this.file.write(src, position);
+		if (this.readAhead != null) {
+			this.readAhead.cancel();
+		}
+		long start = System.nanoTime();
+		long offset = 0;
+		boolean success = false;
+		try {
+			offset = this.writeBehind != null ? this.writeBehind.write(src, position)
+					: this.handle.write(src, position);
+			success = true;
+		} finally {
+			this.path.getFileSystem().recordTransfer("write", start, offset, success);
+		}
+		if (!this.modified) {
+			this.modified = true;
+			this.path.getFileSystem().invalidateAttributes(this.path);
+		}
+		if (this.writeBehind != null) {
+			this.unflushed = true;
+		}
 		position += offset;
 		return (int) offset;
 	}
@@ -93,7 +208,11 @@ public final class SMBSeekableByteChannel implements SeekableByteChannel {
 		if (!this.open) {
 			throw new ClosedChannelException();
 		}
-		return this.file.getFileInformation(FileStandardInformation.class).getEndOfFile();
+		if (this.content != null) {
+			return this.content.length;
+		}
+		flushWriteBehind();
+		return this.handle.run(file -> file.getFileInformation(FileStandardInformation.class).getEndOfFile());
 	}
 
 	@Override
@@ -110,7 +229,15 @@ public final class SMBSeekableByteChannel implements SeekableByteChannel {
 		if (!this.open) {
 			throw new ClosedChannelException();
 		}
-		this.file.setLength(size);
+		flushWriteBehind();
+		if (this.readAhead != null) {
+			this.readAhead.cancel();
+		}
+		this.handle.run(file -> {
+			file.setLength(size);
+			return null;
+		});
+		this.path.getFileSystem().invalidateAttributes(this.path);
 		this.position = Math.min(this.position, size);
 		return this;
 	}
@@ -124,7 +251,38 @@ public final class SMBSeekableByteChannel implements SeekableByteChannel {
 	public synchronized void close() throws IOException {
 		if (this.open) {
 			this.open = false;
-			this.file.close();
+			if (this.readAhead != null) {
+				this.readAhead.cancel();
+			}
+			try {
+				flushWriteBehind();
+			} finally {
+				this.handle.close();
+				if (this.modified) {
+					this.path.getFileSystem().invalidateAttributes(this.path);
+				}
+			}
+		}
+	}
+
+	private int readContent(ByteBuffer dst) {
+		if (this.position >= this.content.length) {
+			return -1;
+		}
+		int read = Math.min(dst.remaining(), this.content.length - (int) this.position);
+		dst.put(this.content, (int) this.position, read);
+		this.position += read;
+		return read;
+	}
+
+	// attributes are invalidated once when the channel first writes and again when buffered writes reach the server
+	private void flushWriteBehind() throws IOException {
+		if (this.writeBehind != null) {
+			this.writeBehind.flush();
+			if (this.unflushed) {
+				this.unflushed = false;
+				this.path.getFileSystem().invalidateAttributes(this.path);
+			}
 		}
 	}
 }
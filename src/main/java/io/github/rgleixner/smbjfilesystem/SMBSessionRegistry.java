@@ -0,0 +1,296 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.hierynomus.mserref.NtStatus;
+import com.hierynomus.mssmb2.SMBApiException;
+import com.hierynomus.smbj.SMBClient;
+import com.hierynomus.smbj.auth.AuthenticationContext;
+import com.hierynomus.smbj.common.SMBRuntimeException;
+import com.hierynomus.smbj.connection.Connection;
+import com.hierynomus.smbj.session.Session;
+import com.hierynomus.smbj.share.DiskShare;
+
+final class SMBSessionRegistry {
+
+	static final SMBSessionRegistry SHARED = new SMBSessionRegistry();
+
+	private static final Set<NtStatus> SESSION_FAILURE_STATUSES = EnumSet.of(NtStatus.STATUS_USER_SESSION_DELETED,
+			NtStatus.STATUS_NETWORK_SESSION_EXPIRED, NtStatus.STATUS_CONNECTION_DISCONNECTED,
+			NtStatus.STATUS_CONNECTION_RESET);
+
+	final class Lease implements Closeable {
+
+		private final SessionEntry entry;
+
+		private String shareName;
+
+		private boolean released = false;
+
+		Lease(SessionEntry entry) {
+			this.entry = entry;
+		}
+
+		DiskShare connectShare(String shareName) throws IOException {
+			synchronized (this) {
+				if (this.shareName == null) {
+					this.shareName = shareName;
+					entry.retainShare(shareName);
+				} else if (!this.shareName.equals(shareName)) {
+					throw new IllegalStateException("The lease is already bound to share " + this.shareName + ".");
+				}
+			}
+			return entry.connectShare(shareName);
+		}
+
+		@Override
+		public synchronized void close() {
+			if (!released) {
+				released = true;
+				if (shareName != null) {
+					entry.releaseShare(shareName);
+				}
+				release(entry);
+			}
+		}
+
+	}
+
+	private static final class ClientEntry {
+
+		private final Object key;
+
+		private final SMBClient client;
+
+		private int references;
+
+		ClientEntry(Object key, SMBClient client) {
+			this.key = key;
+			this.client = client;
+		}
+
+	}
+
+	private static final class ShareEntry {
+
+		private int references;
+
+		private DiskShare share;
+
+	}
+
+	private static final class SessionEntry {
+
+		private final Object key;
+
+		private final ClientEntry client;
+
+		private final String host;
+
+		private final int port;
+
+		private final AuthenticationContext authenticationContext;
+
+		private int references;
+
+		private final Map<String, ShareEntry> shares = new HashMap<>();
+
+		private Connection connection;
+
+		private Session session;
+
+		SessionEntry(Object key, ClientEntry client, String host, int port,
+				AuthenticationContext authenticationContext) {
+			this.key = key;
+			this.client = client;
+			this.host = host;
+			this.port = port;
+			this.authenticationContext = authenticationContext;
+		}
+
+		synchronized Session connect() throws IOException {
+			if (session == null || !connection.isConnected()) {
+				disconnect();
+				Connection newConnection = port == -1 ? client.client.connect(host) : client.client.connect(host, port);
+				try {
+					session = newConnection.authenticate(authenticationContext);
+				} catch (RuntimeException e) {
+					newConnection.close();
+					throw e;
+				}
+				connection = newConnection;
+			}
+			return session;
+		}
+
+		DiskShare connectShare(String shareName) throws IOException {
+			Session current = connect();
+			DiskShare share;
+			try {
+				share = (DiskShare) current.connectShare(shareName);
+			} catch (SMBRuntimeException e) {
+				if (!isSessionFailure(e)) {
+					throw e;
+				}
+				SMBFileSystem.LOGGER.debug("lost session to {} while connecting share {}, reconnecting", host,
+						shareName, e);
+				invalidate(current);
+				share = (DiskShare) connect().connectShare(shareName);
+			}
+			synchronized (this) {
+				ShareEntry entry = shares.get(shareName);
+				if (entry != null) {
+					entry.share = share;
+				}
+			}
+			return share;
+		}
+
+		synchronized void retainShare(String shareName) {
+			shares.computeIfAbsent(shareName, name -> new ShareEntry()).references++;
+		}
+
+		void releaseShare(String shareName) {
+			DiskShare unused;
+			synchronized (this) {
+				ShareEntry entry = shares.get(shareName);
+				if (entry == null || --entry.references > 0) {
+					return;
+				}
+				shares.remove(shareName);
+				unused = entry.share;
+			}
+			if (unused != null) {
+				try {
+					unused.close();
+				} catch (IOException | RuntimeException e) {
+					SMBFileSystem.LOGGER.debug("failed to disconnect share {}", shareName, e);
+				}
+			}
+		}
+
+		synchronized void invalidate(Session failed) {
+			if (session == failed) {
+				disconnect();
+			}
+		}
+
+		synchronized void disconnect() {
+			if (session != null) {
+				try {
+					session.close();
+				} catch (IOException | RuntimeException e) {
+					SMBFileSystem.LOGGER.debug("failed to log off session on {}", host, e);
+				}
+				session = null;
+			}
+			if (connection != null) {
+				try {
+					connection.close();
+				} catch (IOException | RuntimeException e) {
+					SMBFileSystem.LOGGER.debug("failed to close connection to {}", host, e);
+				}
+				connection = null;
+			}
+		}
+
+	}
+
+	private final Map<Object, ClientEntry> clients = new HashMap<>();
+
+	private final Map<Object, SessionEntry> sessions = new HashMap<>();
+
+	Lease acquire(Object clientKey, Supplier<SMBClient> clientSupplier, String host, int port,
+			AuthenticationContext authenticationContext) {
+		Object sessionKey = List.of(clientKey, host.toLowerCase(Locale.ROOT), port,
+				getCredentialKey(authenticationContext));
+		synchronized (this) {
+			SessionEntry entry = sessions.get(sessionKey);
+			if (entry == null) {
+				ClientEntry client = clients.get(clientKey);
+				if (client == null) {
+					client = new ClientEntry(clientKey, clientSupplier.get());
+					clients.put(clientKey, client);
+				}
+				client.references++;
+				entry = new SessionEntry(sessionKey, client, host, port, authenticationContext);
+				sessions.put(sessionKey, entry);
+			}
+			entry.references++;
+			return new Lease(entry);
+		}
+	}
+
+	synchronized int getSessionCount() {
+		return sessions.size();
+	}
+
+	synchronized int getClientCount() {
+		return clients.size();
+	}
+
+	private void release(SessionEntry entry) {
+		ClientEntry unusedClient = null;
+		synchronized (this) {
+			if (--entry.references > 0) {
+				return;
+			}
+			sessions.remove(entry.key);
+			if (--entry.client.references == 0) {
+				clients.remove(entry.client.key);
+				unusedClient = entry.client;
+			}
+		}
+		entry.disconnect();
+		if (unusedClient != null) {
+			unusedClient.client.close();
+		}
+	}
+
+	static boolean isSessionFailure(SMBRuntimeException e) {
+		if (e instanceof SMBApiException) {
+			return SESSION_FAILURE_STATUSES.contains(((SMBApiException) e).getStatus());
+		}
+		return true;
+	}
+
+	private static Object getCredentialKey(AuthenticationContext authenticationContext) {
+		return List.of(authenticationContext.getClass().getName(),
+				Objects.toString(authenticationContext.getDomain(), ""),
+				Objects.toString(authenticationContext.getUsername(), ""),
+				digest(authenticationContext.getPassword()));
+	}
+
+	private static String digest(char[] password) {
+		if (password == null) {
+			return "";
+		}
+		ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(bytes);
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} finally {
+			Arrays.fill(bytes.array(), (byte) 0);
+		}
+	}
+
+}
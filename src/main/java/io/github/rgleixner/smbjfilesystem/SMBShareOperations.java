@@ -0,0 +1,72 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.hierynomus.msdtyp.AccessMask;
+import com.hierynomus.msfscc.FileAttributes;
+import com.hierynomus.msfscc.fileinformation.FileQueryableInformation;
+import com.hierynomus.msfscc.fileinformation.FileSettableInformation;
+import com.hierynomus.mssmb2.SMB2CreateDisposition;
+import com.hierynomus.mssmb2.SMB2CreateOptions;
+import com.hierynomus.mssmb2.SMB2ShareAccess;
+import com.hierynomus.smbj.share.DiskEntry;
+import com.hierynomus.smbj.share.DiskShare;
+
+final class SMBShareOperations {
+
+	private SMBShareOperations() {
+	}
+
+	// Handles opened only to read attributes with full sharing are closed without waiting for the response: no later
+	// open can conflict with them, and a failed close merely leaves the handle to the server's cleanup. Every other
+	// handle is closed synchronously, otherwise a following open (or a delete or rename) in the same call sequence can
+	// still see it and fail with a sharing violation.
+
+	static <F extends FileQueryableInformation> F queryInformation(DiskShare share, String path, Class<F> type) {
+		DiskEntry entry = open(share, path, EnumSet.of(AccessMask.FILE_READ_ATTRIBUTES),
+				SMB2CreateDisposition.FILE_OPEN, EnumSet.noneOf(SMB2CreateOptions.class));
+		try {
+			return entry.getFileInformation(type);
+		} finally {
+			entry.closeNoWait();
+		}
+	}
+
+	static <F extends FileQueryableInformation> F queryLinkInformation(DiskShare share, String path, Class<F> type) {
+		DiskEntry entry = open(share, path, EnumSet.of(AccessMask.FILE_READ_ATTRIBUTES),
+				SMB2CreateDisposition.FILE_OPEN, EnumSet.of(SMB2CreateOptions.FILE_OPEN_REPARSE_POINT));
+		try {
+			return entry.getFileInformation(type);
+		} finally {
+			entry.closeNoWait();
+		}
+	}
+
+	static <F extends FileSettableInformation> void setInformation(DiskShare share, String path, F information) {
+		DiskEntry entry = open(share, path, EnumSet.of(AccessMask.FILE_WRITE_ATTRIBUTES),
+				SMB2CreateDisposition.FILE_OPEN, EnumSet.noneOf(SMB2CreateOptions.class));
+		try {
+			entry.setFileInformation(information);
+		} finally {
+			entry.close();
+		}
+	}
+
+	static void createDirectory(DiskShare share, String path) {
+		share.openDirectory(path, EnumSet.of(AccessMask.GENERIC_WRITE), null, SMB2ShareAccess.ALL,
+				SMB2CreateDisposition.FILE_CREATE, null).close();
+	}
+
+	static void checkAccess(DiskShare share, String path, Set<AccessMask> accessMask) {
+		open(share, path, accessMask, SMB2CreateDisposition.FILE_OPEN, EnumSet.noneOf(SMB2CreateOptions.class))
+				.close();
+	}
+
+	private static DiskEntry open(DiskShare share, String path, Set<AccessMask> accessMask,
+			SMB2CreateDisposition createDisposition, Set<SMB2CreateOptions> createOptions) {
+		return share.open(path, accessMask, EnumSet.of(FileAttributes.FILE_ATTRIBUTE_NORMAL), SMB2ShareAccess.ALL,
+				createDisposition, createOptions);
+	}
+
+}
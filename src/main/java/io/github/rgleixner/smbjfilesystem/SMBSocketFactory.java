@@ -0,0 +1,69 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import javax.net.SocketFactory;
+
+final class SMBSocketFactory extends SocketFactory {
+
+	private final int sendBufferSize;
+
+	private final int receiveBufferSize;
+
+	SMBSocketFactory(int sendBufferSize, int receiveBufferSize) {
+		this.sendBufferSize = sendBufferSize;
+		this.receiveBufferSize = receiveBufferSize;
+	}
+
+	@Override
+	public Socket createSocket() throws IOException {
+		Socket socket = new Socket();
+		socket.setTcpNoDelay(true);
+		if (sendBufferSize > 0) {
+			socket.setSendBufferSize(sendBufferSize);
+		}
+		if (receiveBufferSize > 0) {
+			socket.setReceiveBufferSize(receiveBufferSize);
+		}
+		return socket;
+	}
+
+	@Override
+	public Socket createSocket(String host, int port) throws IOException {
+		return connect(new InetSocketAddress(host, port), null);
+	}
+
+	@Override
+	public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+		return connect(new InetSocketAddress(host, port), new InetSocketAddress(localHost, localPort));
+	}
+
+	@Override
+	public Socket createSocket(InetAddress host, int port) throws IOException {
+		return connect(new InetSocketAddress(host, port), null);
+	}
+
+	@Override
+	public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+			throws IOException {
+		return connect(new InetSocketAddress(address, port), new InetSocketAddress(localAddress, localPort));
+	}
+
+	private Socket connect(InetSocketAddress remote, InetSocketAddress local) throws IOException {
+		Socket socket = createSocket();
+		try {
+			if (local != null) {
+				socket.bind(local);
+			}
+			socket.connect(remote);
+			return socket;
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.hierynomus.msdtyp.AccessMask;
+import com.hierynomus.msfscc.FileAttributes;
+import com.hierynomus.msfscc.fileinformation.FileAllInformation;
+import com.hierynomus.mssmb2.SMB2CreateDisposition;
+import com.hierynomus.mssmb2.SMB2CreateOptions;
+import com.hierynomus.mssmb2.SMB2ShareAccess;
+import com.hierynomus.smbj.share.DiskEntry;
+
+final class SMBTreeDeleter {
+
+	private static final int MAX_PENDING_TASKS = 1024;
+
+	private final class DeleteTask extends RecursiveTask<Boolean> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final SMBPath path;
+
+		private final SMBFileAttributes attributes;
+
+		DeleteTask(SMBPath path, SMBFileAttributes attributes) {
+			this.path = path;
+			this.attributes = attributes;
+		}
+
+		@Override
+		protected Boolean compute() {
+			boolean deleted = !isTraversable(this.attributes) || deleteChildren();
+			if (deleted) {
+				try {
+					deleteEntry(this.path, this.attributes);
+				} catch (NoSuchFileException e) {
+					// already removed by someone else
+				} catch (IOException e) {
+					SMBTreeDeleter.this.errors.add(e);
+					deleted = false;
+				}
+			}
+			return deleted;
+		}
+
+		private boolean deleteChildren() {
+			boolean deleted = true;
+			List<DeleteTask> subtasks = new ArrayList<>();
+			try (SMBDirectoryStream stream = new SMBDirectoryStream(this.path, null)) {
+				for (Path child : stream) {
+					SMBPath smbChild = SMBPath.fromPath(child);
+					DeleteTask subtask = new DeleteTask(smbChild, smbChild.getAttributes());
+					subtask.fork();
+					subtasks.add(subtask);
+					if (subtasks.size() >= MAX_PENDING_TASKS) {
+						deleted &= joinAll(subtasks);
+					}
+				}
+			} catch (NoSuchFileException e) {
+				// already removed by someone else
+			} catch (IOException e) {
+				SMBTreeDeleter.this.errors.add(e);
+				deleted = false;
+			} catch (DirectoryIteratorException e) {
+				SMBTreeDeleter.this.errors.add(e.getCause());
+				deleted = false;
+			}
+			return joinAll(subtasks) && deleted;
+		}
+
+		private boolean joinAll(List<DeleteTask> subtasks) {
+			boolean deleted = true;
+			for (DeleteTask subtask : subtasks) {
+				deleted &= subtask.join();
+			}
+			subtasks.clear();
+			return deleted;
+		}
+
+	}
+
+	private final int parallelism;
+
+	private final Queue<IOException> errors = new ConcurrentLinkedQueue<>();
+
+	SMBTreeDeleter(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be at least 1.");
+		}
+		this.parallelism = parallelism;
+	}
+
+	void delete(SMBPath start) throws IOException {
+		SMBFileAttributes attributes = readLinkAttributes(start);
+		if (isTraversable(attributes)) {
+			ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+			try {
+				pool.invoke(new DeleteTask(start, attributes));
+			} finally {
+				pool.shutdown();
+				start.getFileSystem().invalidateAttributeTree(start);
+			}
+		} else {
+			deleteEntry(start, attributes);
+		}
+
+		IOException error = this.errors.poll();
+		if (error != null) {
+			for (IOException suppressed : this.errors) {
+				error.addSuppressed(suppressed);
+			}
+			throw error;
+		}
+	}
+
+	static boolean isTraversable(SMBFileAttributes attributes) {
+		return attributes.isDirectory() && !attributes.isReparsePoint();
+	}
+
+	static Set<SMB2CreateOptions> getDeleteOptions(SMBFileAttributes attributes) {
+		if (attributes.isReparsePoint()) {
+			return EnumSet.of(SMB2CreateOptions.FILE_DELETE_ON_CLOSE, SMB2CreateOptions.FILE_OPEN_REPARSE_POINT);
+		}
+		return EnumSet.of(SMB2CreateOptions.FILE_DELETE_ON_CLOSE, attributes.isDirectory()
+				? SMB2CreateOptions.FILE_DIRECTORY_FILE
+				: SMB2CreateOptions.FILE_NON_DIRECTORY_FILE);
+	}
+
+	private static SMBFileAttributes readLinkAttributes(SMBPath path) throws IOException {
+		return new SMBFileAttributes(path.<FileAllInformation>call("readAttributes",
+				(share, relativePath) -> SMBShareOperations.queryLinkInformation(share, relativePath,
+						FileAllInformation.class)));
+	}
+
+	private static void deleteEntry(SMBPath path, SMBFileAttributes attributes) throws IOException {
+		path.call("delete", (share, relativePath) -> {
+			try (DiskEntry entry = share.open(relativePath, EnumSet.of(AccessMask.DELETE),
+					EnumSet.of(FileAttributes.FILE_ATTRIBUTE_NORMAL), SMB2ShareAccess.ALL,
+					SMB2CreateDisposition.FILE_OPEN, getDeleteOptions(attributes))) {
+				return Void.TYPE;
+			}
+		});
+		path.getFileSystem().invalidateAttributes(path);
+	}
+
+}
@@ -0,0 +1,99 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+final class SMBTreeWalker {
+
+	private final class WalkTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final SMBPath directory;
+
+		private final int depth;
+
+		WalkTask(SMBPath directory, int depth) {
+			this.directory = directory;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			List<WalkTask> subtasks = new ArrayList<>();
+			try (SMBDirectoryStream stream = new SMBDirectoryStream(this.directory, null)) {
+				for (Path child : stream) {
+					SMBPath smbChild = SMBPath.fromPath(child);
+					SMBFileAttributes attributes = smbChild.getAttributes();
+					SMBTreeWalker.this.visitor.accept(smbChild, attributes);
+					if (attributes.isDirectory() && this.depth + 1 < SMBTreeWalker.this.maxDepth) {
+						WalkTask subtask = new WalkTask(smbChild, this.depth + 1);
+						subtask.fork();
+						subtasks.add(subtask);
+					}
+				}
+			} catch (IOException e) {
+				SMBTreeWalker.this.errors.add(e);
+			} catch (DirectoryIteratorException e) {
+				SMBTreeWalker.this.errors.add(e.getCause());
+			}
+			for (WalkTask subtask : subtasks) {
+				subtask.join();
+			}
+		}
+
+	}
+
+	private final int maxDepth;
+
+	private final int parallelism;
+
+	private final BiConsumer<Path, BasicFileAttributes> visitor;
+
+	private final Queue<IOException> errors = new ConcurrentLinkedQueue<>();
+
+	SMBTreeWalker(int maxDepth, int parallelism, BiConsumer<Path, BasicFileAttributes> visitor) {
+		if (maxDepth < 0) {
+			throw new IllegalArgumentException("The maximum depth must not be negative.");
+		}
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be at least 1.");
+		}
+		this.maxDepth = maxDepth;
+		this.parallelism = parallelism;
+		this.visitor = visitor;
+	}
+
+	void walk(SMBPath start) throws IOException {
+		SMBFileAttributes attributes = start.getFileSystem().readAttributes(start);
+		this.visitor.accept(start, attributes);
+		if (!attributes.isDirectory() || this.maxDepth == 0) {
+			return;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+		try {
+			pool.invoke(new WalkTask(start, 0));
+		} finally {
+			pool.shutdown();
+		}
+
+		IOException error = this.errors.poll();
+		if (error != null) {
+			for (IOException suppressed : this.errors) {
+				error.addSuppressed(suppressed);
+			}
+			throw error;
+		}
+	}
+
+}
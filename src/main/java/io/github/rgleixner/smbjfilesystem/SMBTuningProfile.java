@@ -0,0 +1,61 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.util.Map;
+
+public enum SMBTuningProfile {
+
+	DEFAULT("default", Map.of()),
+
+	LAN_BULK("lan-bulk", Map.of(
+			SMBFileSystemProvider.PROPERTY_READ_BUFFER_SIZE, 8 * 1024 * 1024,
+			SMBFileSystemProvider.PROPERTY_WRITE_BUFFER_SIZE, 8 * 1024 * 1024,
+			SMBFileSystemProvider.PROPERTY_MULTI_CREDIT, true,
+			SMBFileSystemProvider.PROPERTY_SOCKET_SEND_BUFFER_SIZE, 4 * 1024 * 1024,
+			SMBFileSystemProvider.PROPERTY_SOCKET_RECEIVE_BUFFER_SIZE, 4 * 1024 * 1024,
+			SMBFileSystemProvider.PROPERTY_READ_AHEAD, 2,
+			SMBFileSystemProvider.PROPERTY_WRITE_BEHIND, 2,
+			SMBFileSystemProvider.PROPERTY_COPY_PARALLELISM, 4)),
+
+	WAN_LATENCY("wan-latency", Map.ofEntries(
+			Map.entry(SMBFileSystemProvider.PROPERTY_READ_BUFFER_SIZE, 1024 * 1024),
+			Map.entry(SMBFileSystemProvider.PROPERTY_WRITE_BUFFER_SIZE, 1024 * 1024),
+			Map.entry(SMBFileSystemProvider.PROPERTY_MULTI_CREDIT, true),
+			Map.entry(SMBFileSystemProvider.PROPERTY_TIMEOUT, 180_000),
+			Map.entry(SMBFileSystemProvider.PROPERTY_SOCKET_SEND_BUFFER_SIZE, 16 * 1024 * 1024),
+			Map.entry(SMBFileSystemProvider.PROPERTY_SOCKET_RECEIVE_BUFFER_SIZE, 16 * 1024 * 1024),
+			Map.entry(SMBFileSystemProvider.PROPERTY_READ_AHEAD, 16),
+			Map.entry(SMBFileSystemProvider.PROPERTY_WRITE_BEHIND, 16),
+			Map.entry(SMBFileSystemProvider.PROPERTY_COPY_PARALLELISM, 16),
+			Map.entry(SMBFileSystemProvider.PROPERTY_BATCH_CONCURRENCY, 64),
+			Map.entry(SMBFileSystemProvider.PROPERTY_ASYNC_THREADS, 16),
+			Map.entry(SMBFileSystemProvider.PROPERTY_POOL_SIZE, 2),
+			Map.entry(SMBFileSystemProvider.PROPERTY_ATTRIBUTE_CACHE_SIZE, 4096)));
+
+	private final String profileName;
+
+	private final Map<String, Object> properties;
+
+	SMBTuningProfile(String profileName, Map<String, Object> properties) {
+		this.profileName = profileName;
+		this.properties = properties;
+	}
+
+	public String getProfileName() {
+		return profileName;
+	}
+
+	public Map<String, Object> getProperties() {
+		return properties;
+	}
+
+	public static SMBTuningProfile of(String profileName) {
+		String name = profileName.trim();
+		for (SMBTuningProfile profile : values()) {
+			if (profile.profileName.equalsIgnoreCase(name) || profile.name().equalsIgnoreCase(name)) {
+				return profile;
+			}
+		}
+		throw new IllegalArgumentException("Unknown tuning profile '" + profileName + "'.");
+	}
+
+}
@@ -0,0 +1,9 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.nio.file.WatchEvent;
+
+public enum SMBWatchEventModifier implements WatchEvent.Modifier {
+
+	FILE_TREE
+
+}
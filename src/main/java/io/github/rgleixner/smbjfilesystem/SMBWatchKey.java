@@ -0,0 +1,243 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import com.hierynomus.msdtyp.AccessMask;
+import com.hierynomus.mserref.NtStatus;
+import com.hierynomus.msfscc.directory.FileNotifyInformation;
+import com.hierynomus.mssmb2.SMB2CompletionFilter;
+import com.hierynomus.mssmb2.SMB2CreateDisposition;
+import com.hierynomus.mssmb2.SMB2ShareAccess;
+import com.hierynomus.mssmb2.messages.SMB2ChangeNotifyResponse;
+import com.hierynomus.smbj.share.Directory;
+
+public final class SMBWatchKey implements WatchKey {
+
+	private static final class SMBWatchEvent<T> implements WatchEvent<T> {
+
+		private final WatchEvent.Kind<T> kind;
+
+		private final T context;
+
+		private int count = 1;
+
+		SMBWatchEvent(WatchEvent.Kind<T> kind, T context) {
+			this.kind = kind;
+			this.context = context;
+		}
+
+		@Override
+		public WatchEvent.Kind<T> kind() {
+			return kind;
+		}
+
+		@Override
+		public int count() {
+			return count;
+		}
+
+		@Override
+		public T context() {
+			return context;
+		}
+
+		@Override
+		public String toString() {
+			return "SMBWatchEvent [kind=" + kind + ", context=" + context + ", count=" + count + "]";
+		}
+
+	}
+
+	private static final int MAX_EVENTS = 512;
+
+	private final SMBWatchService watchService;
+
+	private final SMBPath path;
+
+	private volatile Set<WatchEvent.Kind<?>> kinds;
+
+	private volatile boolean recursive;
+
+	private volatile boolean valid = true;
+
+	private SMBAsyncCompleter completer;
+
+	private Directory directory;
+
+	private boolean signalled;
+
+	private List<SMBWatchEvent<?>> events = new ArrayList<>();
+
+	SMBWatchKey(SMBWatchService watchService, SMBPath path, Set<WatchEvent.Kind<?>> kinds, boolean recursive) {
+		this.watchService = watchService;
+		this.path = path;
+		this.kinds = kinds;
+		this.recursive = recursive;
+	}
+
+	void start(SMBAsyncCompleter completer) throws IOException {
+		this.completer = completer;
+		this.directory = this.path.call("watch", (share, relativePath) -> share.openDirectory(relativePath,
+				EnumSet.of(AccessMask.FILE_LIST_DIRECTORY, AccessMask.FILE_READ_ATTRIBUTES), null,
+				SMB2ShareAccess.ALL, SMB2CreateDisposition.FILE_OPEN, null));
+		watch();
+	}
+
+	void update(Set<WatchEvent.Kind<?>> kinds, boolean recursive) {
+		this.kinds = kinds;
+		this.recursive = recursive;
+	}
+
+	private void watch() {
+		if (!this.valid) {
+			return;
+		}
+		Future<SMB2ChangeNotifyResponse> response;
+		try {
+			response = this.directory.watchAsync(getCompletionFilter(), this.recursive);
+		} catch (RuntimeException e) {
+			changed(null, e);
+			return;
+		}
+		this.completer.whenDone(response, this::changed);
+	}
+
+	private void changed(SMB2ChangeNotifyResponse response, Throwable error) {
+		if (error != null) {
+			if (this.valid) {
+				SMBFileSystem.LOGGER.debug("change notification for {} failed", this.path, error);
+			}
+			invalidate();
+			return;
+		}
+
+		long status = response.getHeader().getStatusCode();
+		if (status == NtStatus.STATUS_NOTIFY_ENUM_DIR.getValue()) {
+			addEvent(StandardWatchEventKinds.OVERFLOW, null);
+		} else if (status == NtStatus.STATUS_SUCCESS.getValue()) {
+			for (FileNotifyInformation information : response.getFileNotifyInfoList()) {
+				WatchEvent.Kind<Path> kind = toKind(information);
+				if (kind != null && this.kinds.contains(kind)) {
+					addEvent(kind, this.path.getFileSystem().getPath(information.getFileName().replace('\\', '/')));
+				}
+			}
+		} else {
+			invalidate();
+			return;
+		}
+		watch();
+	}
+
+	private Set<SMB2CompletionFilter> getCompletionFilter() {
+		Set<SMB2CompletionFilter> filter = EnumSet.noneOf(SMB2CompletionFilter.class);
+		if (this.kinds.contains(StandardWatchEventKinds.ENTRY_CREATE)
+				|| this.kinds.contains(StandardWatchEventKinds.ENTRY_DELETE)) {
+			filter.add(SMB2CompletionFilter.FILE_NOTIFY_CHANGE_FILE_NAME);
+			filter.add(SMB2CompletionFilter.FILE_NOTIFY_CHANGE_DIR_NAME);
+		}
+		if (this.kinds.contains(StandardWatchEventKinds.ENTRY_MODIFY)) {
+			filter.add(SMB2CompletionFilter.FILE_NOTIFY_CHANGE_ATTRIBUTES);
+			filter.add(SMB2CompletionFilter.FILE_NOTIFY_CHANGE_SIZE);
+			filter.add(SMB2CompletionFilter.FILE_NOTIFY_CHANGE_LAST_WRITE);
+		}
+		return filter;
+	}
+
+	private static WatchEvent.Kind<Path> toKind(FileNotifyInformation information) {
+		switch (information.getAction()) {
+		case FILE_ACTION_ADDED:
+		case FILE_ACTION_RENAMED_NEW_NAME:
+			return StandardWatchEventKinds.ENTRY_CREATE;
+		case FILE_ACTION_REMOVED:
+		case FILE_ACTION_REMOVED_BY_DELETE:
+		case FILE_ACTION_RENAMED_OLD_NAME:
+			return StandardWatchEventKinds.ENTRY_DELETE;
+		case FILE_ACTION_MODIFIED:
+			return StandardWatchEventKinds.ENTRY_MODIFY;
+		default:
+			return null;
+		}
+	}
+
+	synchronized <T> void addEvent(WatchEvent.Kind<T> kind, T context) {
+		SMBWatchEvent<?> last = this.events.isEmpty() ? null : this.events.get(this.events.size() - 1);
+		if (last != null && (last.kind == StandardWatchEventKinds.OVERFLOW
+				|| (last.kind == kind && Objects.equals(last.context, context)))) {
+			last.count++;
+			return;
+		}
+		if (this.events.size() >= MAX_EVENTS) {
+			this.events.add(new SMBWatchEvent<>(StandardWatchEventKinds.OVERFLOW, null));
+		} else {
+			this.events.add(new SMBWatchEvent<>(kind, context));
+		}
+		signal();
+	}
+
+	private synchronized void signal() {
+		if (!this.signalled) {
+			this.signalled = true;
+			this.watchService.signal(this);
+		}
+	}
+
+	private void invalidate() {
+		if (this.valid) {
+			this.valid = false;
+			this.directory.closeSilently();
+			this.watchService.unregister(this);
+			signal();
+		}
+	}
+
+	@Override
+	public boolean isValid() {
+		return this.valid;
+	}
+
+	@Override
+	public synchronized List<WatchEvent<?>> pollEvents() {
+		List<WatchEvent<?>> result = new ArrayList<>(this.events);
+		this.events = new ArrayList<>();
+		return result;
+	}
+
+	@Override
+	public synchronized boolean reset() {
+		if (this.valid && this.signalled) {
+			if (this.events.isEmpty()) {
+				this.signalled = false;
+			} else {
+				this.watchService.signal(this);
+			}
+		}
+		return this.valid;
+	}
+
+	@Override
+	public void cancel() {
+		if (this.valid) {
+			this.valid = false;
+			this.watchService.unregister(this);
+			if (this.directory != null) {
+				this.directory.closeSilently();
+			}
+		}
+	}
+
+	@Override
+	public Path watchable() {
+		return this.path;
+	}
+
+}
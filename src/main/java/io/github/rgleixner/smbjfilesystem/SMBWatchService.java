@@ -0,0 +1,137 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public final class SMBWatchService implements WatchService {
+
+	private final SMBWatchKey closeKey = new SMBWatchKey(this, null, Set.of(), false);
+
+	private final SMBFileSystem fileSystem;
+
+	private final BlockingQueue<SMBWatchKey> signalledKeys = new LinkedBlockingQueue<>();
+
+	private final Map<SMBPath, SMBWatchKey> keys = new HashMap<>();
+
+	private volatile boolean open = true;
+
+	SMBWatchService(SMBFileSystem fileSystem) {
+		this.fileSystem = fileSystem;
+	}
+
+	WatchKey register(SMBPath path, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers)
+			throws IOException {
+		if (path.getFileSystem() != this.fileSystem) {
+			throw new IllegalArgumentException("The path must be on the file system of the watch service.");
+		}
+
+		Set<WatchEvent.Kind<?>> kinds = new HashSet<>();
+		for (WatchEvent.Kind<?> event : events) {
+			if (event == StandardWatchEventKinds.ENTRY_CREATE || event == StandardWatchEventKinds.ENTRY_DELETE
+					|| event == StandardWatchEventKinds.ENTRY_MODIFY) {
+				kinds.add(event);
+			} else if (event != StandardWatchEventKinds.OVERFLOW) {
+				throw new UnsupportedOperationException("The event kind '" + event.name() + "' is not supported.");
+			}
+		}
+		if (kinds.isEmpty()) {
+			throw new IllegalArgumentException("At least one event kind must be provided.");
+		}
+
+		boolean recursive = false;
+		for (WatchEvent.Modifier modifier : modifiers) {
+			if (modifier == SMBWatchEventModifier.FILE_TREE || modifier.name().equals("FILE_TREE")) {
+				recursive = true;
+			} else {
+				throw new UnsupportedOperationException("The modifier '" + modifier.name() + "' is not supported.");
+			}
+		}
+
+		SMBPath directory = (SMBPath) path.toAbsolutePath();
+		synchronized (this.keys) {
+			ensureOpen();
+			SMBWatchKey key = this.keys.get(directory);
+			if (key != null && key.isValid()) {
+				key.update(kinds, recursive);
+				return key;
+			}
+			key = new SMBWatchKey(this, directory, kinds, recursive);
+			key.start(this.fileSystem.getWatchCompleter());
+			this.keys.put(directory, key);
+			return key;
+		}
+	}
+
+	void signal(SMBWatchKey key) {
+		this.signalledKeys.offer(key);
+	}
+
+	void unregister(SMBWatchKey key) {
+		synchronized (this.keys) {
+			this.keys.remove(key.watchable(), key);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		List<SMBWatchKey> registered;
+		synchronized (this.keys) {
+			if (!this.open) {
+				return;
+			}
+			this.open = false;
+			registered = new ArrayList<>(this.keys.values());
+		}
+		for (SMBWatchKey key : registered) {
+			key.cancel();
+		}
+		this.signalledKeys.clear();
+		this.signalledKeys.offer(this.closeKey);
+	}
+
+	@Override
+	public WatchKey poll() {
+		ensureOpen();
+		return checkKey(this.signalledKeys.poll());
+	}
+
+	@Override
+	public WatchKey poll(long timeout, TimeUnit unit) throws InterruptedException {
+		ensureOpen();
+		return checkKey(this.signalledKeys.poll(timeout, unit));
+	}
+
+	@Override
+	public WatchKey take() throws InterruptedException {
+		ensureOpen();
+		return checkKey(this.signalledKeys.take());
+	}
+
+	private WatchKey checkKey(SMBWatchKey key) {
+		if (key == this.closeKey) {
+			this.signalledKeys.offer(key);
+			throw new ClosedWatchServiceException();
+		}
+		return key;
+	}
+
+	private void ensureOpen() {
+		if (!this.open) {
+			throw new ClosedWatchServiceException();
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.hierynomus.smbj.common.SMBRuntimeException;
+import com.hierynomus.smbj.share.File;
+import com.hierynomus.smbj.share.TreeConnect;
+
+final class SMBWriteBehind {
+
+	private static final class PendingWrite {
+
+		private final long offset;
+
+		private final byte[] data;
+
+		private final int length;
+
+		private final Future<Long> written;
+
+		PendingWrite(long offset, byte[] data, int length, Future<Long> written) {
+			this.offset = offset;
+			this.data = data;
+			this.length = length;
+			this.written = written;
+		}
+
+	}
+
+	private final SMBFileHandle handle;
+
+	private final int depth;
+
+	private final int chunkSize;
+
+	private final Deque<PendingWrite> pending = new ArrayDeque<>();
+
+	private byte[] buffer;
+
+	private long bufferOffset = 0;
+
+	private int bufferLength = 0;
+
+	private IOException failure;
+
+	static int getWriteSize(File file) {
+		TreeConnect treeConnect = file.getDiskShare().getTreeConnect();
+		return Math.min(treeConnect.getConfig().getWriteBufferSize(),
+				treeConnect.getNegotiatedProtocol().getMaxWriteSize());
+	}
+
+	SMBWriteBehind(SMBFileHandle handle, int depth) {
+		this.handle = handle;
+		this.depth = depth;
+		this.chunkSize = getWriteSize(handle.get());
+		this.buffer = new byte[this.chunkSize];
+	}
+
+	int write(ByteBuffer src, long position) throws IOException {
+		checkFailure();
+		if (this.bufferLength > 0 && position != this.bufferOffset + this.bufferLength) {
+			submit();
+		}
+		if (this.bufferLength == 0) {
+			this.bufferOffset = position;
+		}
+
+		int written = 0;
+		while (src.hasRemaining()) {
+			int length = Math.min(src.remaining(), this.chunkSize - this.bufferLength);
+			src.get(this.buffer, this.bufferLength, length);
+			this.bufferLength += length;
+			written += length;
+			if (this.bufferLength == this.chunkSize) {
+				submit();
+				this.bufferOffset = position + written;
+			}
+		}
+		return written;
+	}
+
+	void flush() throws IOException {
+		checkFailure();
+		submit();
+		while (!this.pending.isEmpty()) {
+			await(this.pending.removeFirst());
+		}
+	}
+
+	private void submit() throws IOException {
+		if (this.bufferLength == 0) {
+			return;
+		}
+		while (this.pending.size() >= this.depth) {
+			await(this.pending.removeFirst());
+		}
+		Future<Long> written;
+		try {
+			written = this.handle.get().writeAsync(this.buffer, this.bufferOffset, 0, this.bufferLength);
+		} catch (SMBRuntimeException e) {
+			if (!SMBFileHandle.isReconnectable(e)) {
+				throw fail(e);
+			}
+			written = CompletableFuture.failedFuture(e);
+		}
+		this.pending.addLast(new PendingWrite(this.bufferOffset, this.buffer, this.bufferLength, written));
+		this.buffer = new byte[this.chunkSize];
+		this.bufferLength = 0;
+	}
+
+	private void checkFailure() throws IOException {
+		while (this.failure == null && !this.pending.isEmpty() && this.pending.getFirst().written.isDone()) {
+			await(this.pending.removeFirst());
+		}
+		if (this.failure != null) {
+			throw this.failure;
+		}
+	}
+
+	private long awaitWrite(PendingWrite write) throws InterruptedException, ExecutionException, IOException {
+		try {
+			return write.written.get();
+		} catch (ExecutionException e) {
+			if (!SMBFileHandle.isReconnectable(e.getCause())) {
+				throw e;
+			}
+			return this.handle.run(file -> file.write(write.data, write.offset, 0, write.length));
+		}
+	}
+
+	private void await(PendingWrite write) throws IOException {
+		try {
+			long written = awaitWrite(write);
+			if (written != write.length) {
+				throw new IOException("Short write at offset " + write.offset + ": " + written + " of "
+						+ write.length + " bytes written.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for write-behind.");
+		} catch (ExecutionException e) {
+			throw fail(e.getCause());
+		} catch (IOException | SMBRuntimeException e) {
+			throw fail(e);
+		}
+	}
+
+	private IOException fail(Throwable cause) {
+		if (cause instanceof IOException) {
+			this.failure = (IOException) cause;
+		} else if (cause instanceof SMBRuntimeException) {
+			this.failure = SMBExceptionUtil.translateToIOException((SMBRuntimeException) cause, this.handle.getPath());
+		} else {
+			this.failure = new IOException(cause.getMessage(), cause);
+		}
+		return this.failure;
+	}
+
+}
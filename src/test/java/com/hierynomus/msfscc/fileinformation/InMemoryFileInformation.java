@@ -0,0 +1,37 @@
+package com.hierynomus.msfscc.fileinformation;
+
+import com.hierynomus.msdtyp.FileTime;
+
+public final class InMemoryFileInformation {
+
+	private InMemoryFileInformation() {
+	}
+
+	public static FileStandardInformation standard(long endOfFile, boolean directory) {
+		return new FileStandardInformation(endOfFile, endOfFile, 1, false, directory);
+	}
+
+	public static FileAllInformation all(FileBasicInformation basicInformation, long endOfFile, boolean directory,
+			long fileId, String fileName) {
+		return new FileAllInformation(basicInformation, standard(endOfFile, directory),
+				new FileInternalInformation(fileId), new FileEaInformation(0), new FileAccessInformation(0),
+				new FilePositionInformation(0), new FileModeInformation(0), new FileAlignmentInformation(0), fileName);
+	}
+
+	public static FileIdBothDirectoryInformation directoryEntry(FileBasicInformation basicInformation, long endOfFile,
+			long fileId, String fileName) {
+		return new FileIdBothDirectoryInformation(0, 0, fileName, basicInformation.getCreationTime(),
+				basicInformation.getLastAccessTime(), basicInformation.getLastWriteTime(),
+				basicInformation.getChangeTime(), endOfFile, endOfFile, basicInformation.getFileAttributes(), 0, "",
+				fileId);
+	}
+
+	public static ShareInfo share(long totalSpace, long freeSpace) {
+		return new ShareInfo(totalSpace / 4096, freeSpace / 4096, freeSpace / 4096, 8, 512);
+	}
+
+	public static FileBasicInformation basic(FileTime time, long fileAttributes) {
+		return new FileBasicInformation(time, time, time, time, fileAttributes);
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.hierynomus.smbj.connection;
+
+import java.util.UUID;
+
+import com.hierynomus.mssmb2.SMB2Dialect;
+import com.hierynomus.smbj.SmbConfig;
+
+public class InMemoryConnectionContext extends ConnectionContext {
+
+	private final NegotiatedProtocol negotiatedProtocol;
+
+	public InMemoryConnectionContext(String host, SmbConfig config) {
+		super(UUID.randomUUID(), host, 445, config);
+		this.negotiatedProtocol = new NegotiatedProtocol(SMB2Dialect.SMB_3_1_1, config.getTransactBufferSize(),
+				config.getReadBufferSize(), config.getWriteBufferSize(), true);
+	}
+
+	@Override
+	public NegotiatedProtocol getNegotiatedProtocol() {
+		return negotiatedProtocol;
+	}
+
+}
@@ -0,0 +1,732 @@
+package com.hierynomus.smbj.share;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.hierynomus.msdtyp.AccessMask;
+import com.hierynomus.msdtyp.FileTime;
+import com.hierynomus.mserref.NtStatus;
+import com.hierynomus.msfscc.FileAttributes;
+import com.hierynomus.msfscc.FileNotifyAction;
+import com.hierynomus.msfscc.directory.FileNotifyInformation;
+import com.hierynomus.msfscc.fileinformation.FileAllInformation;
+import com.hierynomus.msfscc.fileinformation.FileBasicInformation;
+import com.hierynomus.msfscc.fileinformation.FileDirectoryQueryableInformation;
+import com.hierynomus.msfscc.fileinformation.FileEndOfFileInformation;
+import com.hierynomus.msfscc.fileinformation.FileIdBothDirectoryInformation;
+import com.hierynomus.msfscc.fileinformation.FileInformation;
+import com.hierynomus.msfscc.fileinformation.FileQueryableInformation;
+import com.hierynomus.msfscc.fileinformation.FileSettableInformation;
+import com.hierynomus.msfscc.fileinformation.FileStandardInformation;
+import com.hierynomus.msfscc.fileinformation.InMemoryFileInformation;
+import com.hierynomus.msfscc.fileinformation.ShareInfo;
+import com.hierynomus.mssmb2.SMB2CompletionFilter;
+import com.hierynomus.mssmb2.SMB2CreateDisposition;
+import com.hierynomus.mssmb2.SMB2CreateOptions;
+import com.hierynomus.mssmb2.SMB2FileId;
+import com.hierynomus.mssmb2.SMB2MessageCommandCode;
+import com.hierynomus.mssmb2.SMB2ShareAccess;
+import com.hierynomus.mssmb2.SMBApiException;
+import com.hierynomus.mssmb2.messages.SMB2ChangeNotifyResponse;
+import com.hierynomus.smbj.SmbConfig;
+import com.hierynomus.smbj.common.SmbPath;
+import com.hierynomus.smbj.connection.InMemoryConnectionContext;
+import com.hierynomus.smbj.event.SMBEventBus;
+import com.hierynomus.smbj.paths.PathResolver;
+import com.hierynomus.smbj.session.Session;
+
+public class InMemoryDiskShare extends DiskShare {
+
+	private static final long SPACE = 1L << 40;
+
+	private static final AtomicLong TREE_IDS = new AtomicLong();
+
+	private static final class Node {
+
+		private final long fileId;
+
+		private final NavigableSet<String> children;
+
+		private byte[] data = new byte[0];
+
+		private long length;
+
+		private volatile FileBasicInformation basicInformation;
+
+		Node(long fileId, boolean directory) {
+			this.fileId = fileId;
+			this.children = directory ? new ConcurrentSkipListSet<>() : null;
+			this.basicInformation = InMemoryFileInformation.basic(FileTime.now(),
+					directory ? FileAttributes.FILE_ATTRIBUTE_DIRECTORY.getValue()
+							: FileAttributes.FILE_ATTRIBUTE_ARCHIVE.getValue());
+		}
+
+		boolean isDirectory() {
+			return children != null;
+		}
+
+		synchronized int read(byte[] buffer, long position, int offset, int count) {
+			if (position >= length) {
+				return -1;
+			}
+			int read = (int) Math.min(count, length - position);
+			System.arraycopy(data, (int) position, buffer, offset, read);
+			return read;
+		}
+
+		synchronized int write(byte[] buffer, long position, int offset, int count) {
+			long end = position + count;
+			ensureCapacity(end);
+			System.arraycopy(buffer, offset, data, (int) position, count);
+			length = Math.max(length, end);
+			return count;
+		}
+
+		synchronized void setLength(long newLength) {
+			ensureCapacity(newLength);
+			if (newLength < length) {
+				Arrays.fill(data, (int) newLength, (int) length, (byte) 0);
+			}
+			length = newLength;
+		}
+
+		synchronized long length() {
+			return length;
+		}
+
+		synchronized byte[] snapshot() {
+			return Arrays.copyOf(data, (int) length);
+		}
+
+		private void ensureCapacity(long capacity) {
+			if (capacity > Integer.MAX_VALUE - 8) {
+				throw new SMBApiException(NtStatus.STATUS_DISK_FULL.getValue(), SMB2MessageCommandCode.SMB2_WRITE,
+						null);
+			}
+			if (capacity > data.length) {
+				data = Arrays.copyOf(data, (int) Math.max(capacity, Math.min(Integer.MAX_VALUE - 8, data.length * 2L)));
+			}
+		}
+
+	}
+
+	private static final class Watcher {
+
+		private final InMemoryDirectory owner;
+
+		private final boolean recursive;
+
+		private final List<FileNotifyInformation> changes = new ArrayList<>();
+
+		private CompletableFuture<SMB2ChangeNotifyResponse> pending;
+
+		Watcher(InMemoryDirectory owner, boolean recursive) {
+			this.owner = owner;
+			this.recursive = recursive;
+		}
+
+		synchronized Future<SMB2ChangeNotifyResponse> next() {
+			if (!changes.isEmpty()) {
+				List<FileNotifyInformation> delivered = new ArrayList<>(changes);
+				changes.clear();
+				return CompletableFuture.completedFuture(changeNotifyResponse(NtStatus.STATUS_SUCCESS, delivered));
+			}
+			pending = new CompletableFuture<>();
+			return pending;
+		}
+
+		synchronized void changed(FileNotifyAction action, String fileName) {
+			changes.add(new FileNotifyInformation() {
+
+				@Override
+				public FileNotifyAction getAction() {
+					return action;
+				}
+
+				@Override
+				public String getFileName() {
+					return fileName;
+				}
+
+			});
+			if (pending != null) {
+				pending.complete(changeNotifyResponse(NtStatus.STATUS_SUCCESS, new ArrayList<>(changes)));
+				pending = null;
+				changes.clear();
+			}
+		}
+
+		synchronized void cleanup() {
+			if (pending != null) {
+				pending.complete(changeNotifyResponse(NtStatus.STATUS_NOTIFY_CLEANUP, List.of()));
+				pending = null;
+			}
+		}
+
+	}
+
+	private final class InMemoryFile extends File {
+
+		private final Entry entry;
+
+		InMemoryFile(Entry entry) {
+			super(entry.fileId, InMemoryDiskShare.this, entry.smbPath);
+			this.entry = entry;
+		}
+
+		@Override
+		public int read(byte[] buffer, long fileOffset) {
+			return read(buffer, fileOffset, 0, buffer.length);
+		}
+
+		@Override
+		public int read(byte[] buffer, long fileOffset, int offset, int length) {
+			checkConnected(SMB2MessageCommandCode.SMB2_READ);
+			return entry.node.read(buffer, fileOffset, offset, Math.min(length, getReadBufferSize()));
+		}
+
+		@Override
+		public long read(ByteBuffer buffer, long fileOffset) {
+			byte[] bytes = new byte[Math.min(buffer.remaining(), getReadBufferSize())];
+			int read = read(bytes, fileOffset, 0, bytes.length);
+			if (read > 0) {
+				buffer.put(bytes, 0, read);
+			}
+			return read;
+		}
+
+		@Override
+		public long write(byte[] buffer, long fileOffset) {
+			return write(buffer, fileOffset, 0, buffer.length);
+		}
+
+		@Override
+		public long write(byte[] buffer, long fileOffset, int offset, int length) {
+			checkConnected(SMB2MessageCommandCode.SMB2_WRITE);
+			return entry.node.write(buffer, fileOffset, offset, length);
+		}
+
+		@Override
+		public long write(ByteBuffer buffer, long fileOffset) {
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			return write(bytes, fileOffset, 0, bytes.length);
+		}
+
+		@Override
+		public Future<Long> writeAsync(byte[] buffer, long fileOffset, int offset, int length) {
+			return CompletableFuture.supplyAsync(() -> write(buffer, fileOffset, offset, length));
+		}
+
+		@Override
+		public void setLength(long endOfFile) {
+			checkConnected(SMB2MessageCommandCode.SMB2_SET_INFO);
+			entry.node.setLength(endOfFile);
+		}
+
+		@Override
+		public void remoteCopyTo(File destination) {
+			remoteCopyTo(0, destination, 0, entry.node.length());
+		}
+
+		@Override
+		public void remoteCopyTo(long offset, File destination, long destinationOffset, long length) {
+			if (!serverSideCopy || !(destination instanceof InMemoryFile)) {
+				throw new SMBApiException(NtStatus.STATUS_NOT_SUPPORTED.getValue(),
+						SMB2MessageCommandCode.SMB2_IOCTL, null);
+			}
+			checkConnected(SMB2MessageCommandCode.SMB2_IOCTL);
+			byte[] data = entry.node.snapshot();
+			int count = (int) Math.max(0, Math.min(length, data.length - offset));
+			((InMemoryFile) destination).entry.node.write(data, destinationOffset, (int) offset, count);
+		}
+
+		@Override
+		public FileAllInformation getFileInformation() {
+			return getFileInformation(FileAllInformation.class);
+		}
+
+		@Override
+		public <F extends FileQueryableInformation> F getFileInformation(Class<F> informationClass) {
+			return entry.getFileInformation(informationClass);
+		}
+
+		@Override
+		public <F extends FileSettableInformation> void setFileInformation(F information) {
+			entry.setFileInformation(information);
+		}
+
+		@Override
+		public void rename(String newName, boolean replaceIfExist) {
+			entry.rename(newName, replaceIfExist);
+		}
+
+		@Override
+		public void deleteOnClose() {
+			entry.deleteOnClose = true;
+		}
+
+		@Override
+		public void flush() {
+			checkConnected(SMB2MessageCommandCode.SMB2_FLUSH);
+		}
+
+		@Override
+		public void close() {
+			entry.close();
+		}
+
+		@Override
+		public void closeNoWait() {
+			entry.close();
+		}
+
+		@Override
+		public void closeSilently() {
+			entry.close();
+		}
+
+	}
+
+	private final class InMemoryDirectory extends Directory {
+
+		private final Entry entry;
+
+		InMemoryDirectory(Entry entry) {
+			super(entry.fileId, InMemoryDiskShare.this, entry.smbPath);
+			this.entry = entry;
+		}
+
+		@Override
+		public List<FileIdBothDirectoryInformation> list() {
+			return list(FileIdBothDirectoryInformation.class, null);
+		}
+
+		@Override
+		public <F extends FileDirectoryQueryableInformation> List<F> list(Class<F> informationClass) {
+			return list(informationClass, null);
+		}
+
+		@Override
+		public <F extends FileDirectoryQueryableInformation> List<F> list(Class<F> informationClass,
+				String searchPattern) {
+			List<F> result = new ArrayList<>();
+			iterator(informationClass, searchPattern).forEachRemaining(result::add);
+			return result;
+		}
+
+		@Override
+		public Iterator<FileIdBothDirectoryInformation> iterator() {
+			return iterator(FileIdBothDirectoryInformation.class, null);
+		}
+
+		@Override
+		public <F extends FileDirectoryQueryableInformation> Iterator<F> iterator(Class<F> informationClass) {
+			return iterator(informationClass, null);
+		}
+
+		@Override
+		public <F extends FileDirectoryQueryableInformation> Iterator<F> iterator(Class<F> informationClass,
+				String searchPattern) {
+			if (informationClass != FileIdBothDirectoryInformation.class) {
+				throw new SMBApiException(NtStatus.STATUS_NOT_SUPPORTED.getValue(),
+						SMB2MessageCommandCode.SMB2_QUERY_DIRECTORY, null);
+			}
+			checkConnected(SMB2MessageCommandCode.SMB2_QUERY_DIRECTORY);
+			Pattern pattern = toPattern(searchPattern);
+			String prefix = entry.path.isEmpty() ? "" : entry.path + "/";
+			List<F> result = new ArrayList<>();
+			for (String name : entry.node.children) {
+				Node child = nodes.get(prefix + name);
+				if (child != null && (pattern == null || pattern.matcher(name).matches())) {
+					result.add(informationClass.cast(InMemoryFileInformation.directoryEntry(child.basicInformation,
+							child.length(), child.fileId, name)));
+				}
+			}
+			return result.iterator();
+		}
+
+		@Override
+		public FileAllInformation getFileInformation() {
+			return getFileInformation(FileAllInformation.class);
+		}
+
+		@Override
+		public <F extends FileQueryableInformation> F getFileInformation(Class<F> informationClass) {
+			return entry.getFileInformation(informationClass);
+		}
+
+		@Override
+		public <F extends FileSettableInformation> void setFileInformation(F information) {
+			entry.setFileInformation(information);
+		}
+
+		@Override
+		public void rename(String newName, boolean replaceIfExist) {
+			entry.rename(newName, replaceIfExist);
+		}
+
+		@Override
+		public void deleteOnClose() {
+			entry.deleteOnClose = true;
+		}
+
+		@Override
+		public Future<SMB2ChangeNotifyResponse> watchAsync(Set<SMB2CompletionFilter> completionFilter,
+				boolean recursive) {
+			checkConnected(SMB2MessageCommandCode.SMB2_CHANGE_NOTIFY);
+			return watchers.computeIfAbsent(this, owner -> new Watcher(owner, recursive)).next();
+		}
+
+		@Override
+		public void close() {
+			closeWatcher(this);
+			entry.close();
+		}
+
+		@Override
+		public void closeNoWait() {
+			close();
+		}
+
+		@Override
+		public void closeSilently() {
+			close();
+		}
+
+	}
+
+	private final class Entry {
+
+		private final SMB2FileId fileId = new SMB2FileId();
+
+		private final SmbPath smbPath;
+
+		private final Node node;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private String path;
+
+		private boolean deleteOnClose;
+
+		Entry(String path, Node node, boolean deleteOnClose) {
+			this.smbPath = new SmbPath(getSmbPath(), path);
+			this.path = path;
+			this.node = node;
+			this.deleteOnClose = deleteOnClose;
+		}
+
+		<F extends FileQueryableInformation> F getFileInformation(Class<F> informationClass) {
+			checkConnected(SMB2MessageCommandCode.SMB2_QUERY_INFO);
+			FileInformation information;
+			if (informationClass == FileAllInformation.class) {
+				information = InMemoryFileInformation.all(node.basicInformation, node.length(), node.isDirectory(),
+						node.fileId, path);
+			} else if (informationClass == FileBasicInformation.class) {
+				information = node.basicInformation;
+			} else if (informationClass == FileStandardInformation.class) {
+				information = InMemoryFileInformation.standard(node.length(), node.isDirectory());
+			} else {
+				throw new SMBApiException(NtStatus.STATUS_NOT_SUPPORTED.getValue(),
+						SMB2MessageCommandCode.SMB2_QUERY_INFO, null);
+			}
+			return informationClass.cast(information);
+		}
+
+		void setFileInformation(FileSettableInformation information) {
+			checkConnected(SMB2MessageCommandCode.SMB2_SET_INFO);
+			if (information instanceof FileBasicInformation) {
+				FileBasicInformation current = node.basicInformation;
+				FileBasicInformation update = (FileBasicInformation) information;
+				node.basicInformation = new FileBasicInformation(
+						select(update.getCreationTime(), current.getCreationTime()),
+						select(update.getLastAccessTime(), current.getLastAccessTime()),
+						select(update.getLastWriteTime(), current.getLastWriteTime()),
+						select(update.getChangeTime(), current.getChangeTime()),
+						update.getFileAttributes() == 0 ? current.getFileAttributes() : update.getFileAttributes());
+			} else if (information instanceof FileEndOfFileInformation && !node.isDirectory()) {
+				node.setLength(((FileEndOfFileInformation) information).getEndOfFile());
+			} else {
+				throw new SMBApiException(NtStatus.STATUS_NOT_SUPPORTED.getValue(),
+						SMB2MessageCommandCode.SMB2_SET_INFO, null);
+			}
+		}
+
+		void rename(String newName, boolean replaceIfExist) {
+			checkConnected(SMB2MessageCommandCode.SMB2_SET_INFO);
+			String target = normalize(newName);
+			synchronized (InMemoryDiskShare.this) {
+				Node existing = nodes.get(target);
+				if (existing != null && (!replaceIfExist || existing.isDirectory())) {
+					throw status(NtStatus.STATUS_OBJECT_NAME_COLLISION, SMB2MessageCommandCode.SMB2_SET_INFO);
+				}
+				Node parent = nodes.get(parent(target));
+				if (parent == null || !parent.isDirectory()) {
+					throw status(NtStatus.STATUS_OBJECT_PATH_NOT_FOUND, SMB2MessageCommandCode.SMB2_SET_INFO);
+				}
+				String prefix = path + "/";
+				for (Map.Entry<String, Node> descendant : new ArrayList<>(nodes.entrySet())) {
+					if (descendant.getKey().startsWith(prefix)) {
+						nodes.remove(descendant.getKey());
+						nodes.put(target + descendant.getKey().substring(path.length()), descendant.getValue());
+					}
+				}
+				nodes.remove(path);
+				nodes.get(parent(path)).children.remove(name(path));
+				nodes.put(target, node);
+				parent.children.add(name(target));
+				path = target;
+			}
+		}
+
+		void close() {
+			if (closed.compareAndSet(false, true)) {
+				if (deleteOnClose) {
+					delete(path);
+				}
+			}
+		}
+
+	}
+
+	private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+
+	private final AtomicLong fileIds = new AtomicLong();
+
+	private final Map<InMemoryDirectory, Watcher> watchers = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	private final boolean serverSideCopy;
+
+	public InMemoryDiskShare(String host, String shareName, SmbConfig config, boolean serverSideCopy) {
+		this(new SmbPath(host, shareName), config, new SMBEventBus(), serverSideCopy);
+	}
+
+	private InMemoryDiskShare(SmbPath smbPath, SmbConfig config, SMBEventBus bus, boolean serverSideCopy) {
+		super(smbPath, new TreeConnect(TREE_IDS.incrementAndGet(), smbPath,
+				new Session(null, config, null, bus, PathResolver.LOCAL, null, null), Collections.emptySet(), config,
+				new InMemoryConnectionContext(smbPath.getHostname(), config), bus, EnumSet.of(AccessMask.MAXIMUM_ALLOWED),
+				Collections.emptySet()), PathResolver.LOCAL);
+		this.serverSideCopy = serverSideCopy;
+		this.nodes.put("", new Node(fileIds.incrementAndGet(), true));
+	}
+
+	private void checkConnected(SMB2MessageCommandCode command) {
+		if (closed.get()) {
+			throw status(NtStatus.STATUS_NETWORK_NAME_DELETED, command);
+		}
+	}
+
+	@Override
+	int getReadBufferSize() {
+		return Math.min(treeConnect.getConfig().getReadBufferSize(),
+				treeConnect.getNegotiatedProtocol().getMaxReadSize());
+	}
+
+	@Override
+	int getWriteBufferSize() {
+		return Math.min(treeConnect.getConfig().getWriteBufferSize(),
+				treeConnect.getNegotiatedProtocol().getMaxWriteSize());
+	}
+
+	@Override
+	public DiskEntry open(String path, Set<AccessMask> accessMask, Set<FileAttributes> attributes,
+			Set<SMB2ShareAccess> shareAccesses, SMB2CreateDisposition createDisposition,
+			Set<SMB2CreateOptions> createOptions) {
+		checkConnected(SMB2MessageCommandCode.SMB2_CREATE);
+		Set<SMB2CreateOptions> options = createOptions == null ? EnumSet.noneOf(SMB2CreateOptions.class)
+				: createOptions;
+		String normalized = normalize(path);
+		Node node;
+		synchronized (this) {
+			node = nodes.get(normalized);
+			if (node == null) {
+				if (createDisposition == SMB2CreateDisposition.FILE_OPEN
+						|| createDisposition == SMB2CreateDisposition.FILE_OVERWRITE) {
+					Node parent = nodes.get(parent(normalized));
+					throw status(parent == null ? NtStatus.STATUS_OBJECT_PATH_NOT_FOUND
+							: NtStatus.STATUS_OBJECT_NAME_NOT_FOUND, SMB2MessageCommandCode.SMB2_CREATE);
+				}
+				Node parent = nodes.get(parent(normalized));
+				if (parent == null || !parent.isDirectory()) {
+					throw status(NtStatus.STATUS_OBJECT_PATH_NOT_FOUND, SMB2MessageCommandCode.SMB2_CREATE);
+				}
+				node = new Node(fileIds.incrementAndGet(), options.contains(SMB2CreateOptions.FILE_DIRECTORY_FILE));
+				nodes.put(normalized, node);
+				parent.children.add(name(normalized));
+				notifyWatchers(normalized, FileNotifyAction.FILE_ACTION_ADDED);
+			} else if (createDisposition == SMB2CreateDisposition.FILE_CREATE) {
+				throw status(NtStatus.STATUS_OBJECT_NAME_COLLISION, SMB2MessageCommandCode.SMB2_CREATE);
+			} else if (node.isDirectory() && options.contains(SMB2CreateOptions.FILE_NON_DIRECTORY_FILE)) {
+				throw status(NtStatus.STATUS_FILE_IS_A_DIRECTORY, SMB2MessageCommandCode.SMB2_CREATE);
+			} else if (!node.isDirectory() && options.contains(SMB2CreateOptions.FILE_DIRECTORY_FILE)) {
+				throw status(NtStatus.STATUS_NOT_A_DIRECTORY, SMB2MessageCommandCode.SMB2_CREATE);
+			} else if (!node.isDirectory() && (createDisposition == SMB2CreateDisposition.FILE_OVERWRITE
+					|| createDisposition == SMB2CreateDisposition.FILE_OVERWRITE_IF
+					|| createDisposition == SMB2CreateDisposition.FILE_SUPERSEDE)) {
+				node.setLength(0);
+			}
+		}
+		Entry entry = new Entry(normalized, node, options.contains(SMB2CreateOptions.FILE_DELETE_ON_CLOSE));
+		return node.isDirectory() ? new InMemoryDirectory(entry) : new InMemoryFile(entry);
+	}
+
+	@Override
+	public Directory openDirectory(String path, Set<AccessMask> accessMask, Set<FileAttributes> attributes,
+			Set<SMB2ShareAccess> shareAccesses, SMB2CreateDisposition createDisposition,
+			Set<SMB2CreateOptions> createOptions) {
+		Set<SMB2CreateOptions> options = createOptions == null ? EnumSet.noneOf(SMB2CreateOptions.class)
+				: EnumSet.copyOf(createOptions);
+		options.add(SMB2CreateOptions.FILE_DIRECTORY_FILE);
+		options.remove(SMB2CreateOptions.FILE_NON_DIRECTORY_FILE);
+		return (Directory) open(path, accessMask, attributes, shareAccesses, createDisposition, options);
+	}
+
+	@Override
+	public File openFile(String path, Set<AccessMask> accessMask, Set<FileAttributes> attributes,
+			Set<SMB2ShareAccess> shareAccesses, SMB2CreateDisposition createDisposition,
+			Set<SMB2CreateOptions> createOptions) {
+		Set<SMB2CreateOptions> options = createOptions == null ? EnumSet.noneOf(SMB2CreateOptions.class)
+				: EnumSet.copyOf(createOptions);
+		options.add(SMB2CreateOptions.FILE_NON_DIRECTORY_FILE);
+		options.remove(SMB2CreateOptions.FILE_DIRECTORY_FILE);
+		return (File) open(path, accessMask, attributes, shareAccesses, createDisposition, options);
+	}
+
+	@Override
+	public void rm(String path) {
+		try (DiskEntry entry = openFile(path, EnumSet.of(AccessMask.DELETE), null, SMB2ShareAccess.ALL,
+				SMB2CreateDisposition.FILE_OPEN, null)) {
+			entry.deleteOnClose();
+		}
+	}
+
+	@Override
+	public ShareInfo getShareInformation() {
+		checkConnected(SMB2MessageCommandCode.SMB2_QUERY_INFO);
+		return InMemoryFileInformation.share(SPACE, SPACE);
+	}
+
+	@Override
+	public boolean isConnected() {
+		return !closed.get();
+	}
+
+	@Override
+	public void close() {
+		closed.set(true);
+	}
+
+	private synchronized void delete(String path) {
+		Node node = nodes.get(path);
+		if (node == null || path.isEmpty()) {
+			return;
+		}
+		if (node.isDirectory() && !node.children.isEmpty()) {
+			throw status(NtStatus.STATUS_DIRECTORY_NOT_EMPTY, SMB2MessageCommandCode.SMB2_CLOSE);
+		}
+		nodes.remove(path);
+		Node parent = nodes.get(parent(path));
+		if (parent != null) {
+			parent.children.remove(name(path));
+		}
+		notifyWatchers(path, FileNotifyAction.FILE_ACTION_REMOVED);
+	}
+
+	private void notifyWatchers(String path, FileNotifyAction action) {
+		for (Watcher watcher : watchers.values()) {
+			String directory = watcher.owner.entry.path;
+			String prefix = directory.isEmpty() ? "" : directory + "/";
+			if (path.startsWith(prefix) && !path.equals(directory)
+					&& (watcher.recursive || parent(path).equals(directory))) {
+				watcher.changed(action, path.substring(prefix.length()).replace('/', '\\'));
+			}
+		}
+	}
+
+	private void closeWatcher(InMemoryDirectory owner) {
+		Watcher watcher = watchers.remove(owner);
+		if (watcher != null) {
+			watcher.cleanup();
+		}
+	}
+
+	private static SMB2ChangeNotifyResponse changeNotifyResponse(NtStatus status,
+			List<FileNotifyInformation> changes) {
+		SMB2ChangeNotifyResponse response = new SMB2ChangeNotifyResponse() {
+
+			@Override
+			public List<FileNotifyInformation> getFileNotifyInfoList() {
+				return changes;
+			}
+
+		};
+		response.getHeader().setStatusCode(status.getValue());
+		return response;
+	}
+
+	private static FileTime select(FileTime update, FileTime current) {
+		return update == null || update.getWindowsTimeStamp() <= 0 ? current : update;
+	}
+
+	private static SMBApiException status(NtStatus status, SMB2MessageCommandCode command) {
+		return new SMBApiException(status.getValue(), command, null);
+	}
+
+	private static Pattern toPattern(String searchPattern) {
+		if (searchPattern == null || searchPattern.equals("*")) {
+			return null;
+		}
+		StringBuilder regex = new StringBuilder();
+		for (char c : searchPattern.toCharArray()) {
+			if (c == '*') {
+				regex.append(".*");
+			} else if (c == '?') {
+				regex.append('.');
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+	}
+
+	private static String normalize(String path) {
+		String normalized = path.replace('\\', '/');
+		int start = 0;
+		int end = normalized.length();
+		while (start < end && normalized.charAt(start) == '/') {
+			start++;
+		}
+		while (end > start && normalized.charAt(end - 1) == '/') {
+			end--;
+		}
+		return normalized.substring(start, end);
+	}
+
+	private static String parent(String path) {
+		int index = path.lastIndexOf('/');
+		return index == -1 ? "" : path.substring(0, index);
+	}
+
+	private static String name(String path) {
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
+}
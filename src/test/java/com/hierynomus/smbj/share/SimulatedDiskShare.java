@@ -0,0 +1,393 @@
+package com.hierynomus.smbj.share;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import com.hierynomus.msdtyp.AccessMask;
+import com.hierynomus.msfscc.FileAttributes;
+import com.hierynomus.msfscc.fileinformation.FileAllInformation;
+import com.hierynomus.msfscc.fileinformation.FileDirectoryQueryableInformation;
+import com.hierynomus.msfscc.fileinformation.FileIdBothDirectoryInformation;
+import com.hierynomus.msfscc.fileinformation.FileQueryableInformation;
+import com.hierynomus.msfscc.fileinformation.FileSettableInformation;
+import com.hierynomus.msfscc.fileinformation.ShareInfo;
+import com.hierynomus.mssmb2.SMB2CompletionFilter;
+import com.hierynomus.mssmb2.SMB2CreateDisposition;
+import com.hierynomus.mssmb2.SMB2CreateOptions;
+import com.hierynomus.mssmb2.SMB2MessageCommandCode;
+import com.hierynomus.mssmb2.SMB2ShareAccess;
+import com.hierynomus.mssmb2.messages.SMB2ChangeNotifyResponse;
+import com.hierynomus.protocol.commons.buffer.Buffer.BufferException;
+import com.hierynomus.protocol.transport.TransportException;
+import com.hierynomus.smbj.paths.PathResolver;
+
+public class SimulatedDiskShare extends DiskShare {
+
+	private static final int DIRECTORY_ENTRY_SIZE = 104;
+
+	@FunctionalInterface
+	public interface Network {
+
+		void request(SMB2MessageCommandCode command, long bytes);
+
+	}
+
+	private final class SimulatedFile extends File {
+
+		private final File delegate;
+
+		SimulatedFile(File delegate) {
+			super(delegate.getFileId(), SimulatedDiskShare.this, delegate.name);
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int read(byte[] buffer, long fileOffset) {
+			return read(buffer, fileOffset, 0, buffer.length);
+		}
+
+		@Override
+		public int read(byte[] buffer, long fileOffset, int offset, int length) {
+			network.request(SMB2MessageCommandCode.SMB2_READ, Math.min(length, getReadBufferSize()));
+			return delegate.read(buffer, fileOffset, offset, length);
+		}
+
+		@Override
+		public long read(ByteBuffer buffer, long fileOffset) {
+			network.request(SMB2MessageCommandCode.SMB2_READ, Math.min(buffer.remaining(), getReadBufferSize()));
+			return delegate.read(buffer, fileOffset);
+		}
+
+		@Override
+		public long write(byte[] buffer, long fileOffset) {
+			return write(buffer, fileOffset, 0, buffer.length);
+		}
+
+		@Override
+		public long write(byte[] buffer, long fileOffset, int offset, int length) {
+			requestChunks(SMB2MessageCommandCode.SMB2_WRITE, length, getWriteBufferSize());
+			return delegate.write(buffer, fileOffset, offset, length);
+		}
+
+		@Override
+		public long write(ByteBuffer buffer, long fileOffset) {
+			requestChunks(SMB2MessageCommandCode.SMB2_WRITE, buffer.remaining(), getWriteBufferSize());
+			return delegate.write(buffer, fileOffset);
+		}
+
+		@Override
+		public Future<Long> writeAsync(byte[] buffer, long fileOffset, int offset, int length) {
+			return CompletableFuture.supplyAsync(() -> write(buffer, fileOffset, offset, length), executor);
+		}
+
+		@Override
+		public void setLength(long endOfFile) {
+			network.request(SMB2MessageCommandCode.SMB2_SET_INFO, 0);
+			delegate.setLength(endOfFile);
+		}
+
+		@Override
+		public void remoteCopyTo(File destination) throws BufferException, TransportException {
+			network.request(SMB2MessageCommandCode.SMB2_IOCTL, 0);
+			delegate.remoteCopyTo(unwrap(destination));
+		}
+
+		@Override
+		public void remoteCopyTo(long offset, File destination, long destinationOffset, long length)
+				throws BufferException, TransportException {
+			network.request(SMB2MessageCommandCode.SMB2_IOCTL, 0);
+			delegate.remoteCopyTo(offset, unwrap(destination), destinationOffset, length);
+		}
+
+		@Override
+		public FileAllInformation getFileInformation() {
+			return getFileInformation(FileAllInformation.class);
+		}
+
+		@Override
+		public <F extends FileQueryableInformation> F getFileInformation(Class<F> informationClass) {
+			network.request(SMB2MessageCommandCode.SMB2_QUERY_INFO, 0);
+			return delegate.getFileInformation(informationClass);
+		}
+
+		@Override
+		public <F extends FileSettableInformation> void setFileInformation(F information) {
+			network.request(SMB2MessageCommandCode.SMB2_SET_INFO, 0);
+			delegate.setFileInformation(information);
+		}
+
+		@Override
+		public void rename(String newName, boolean replaceIfExist) {
+			network.request(SMB2MessageCommandCode.SMB2_SET_INFO, 0);
+			delegate.rename(newName, replaceIfExist);
+		}
+
+		@Override
+		public void deleteOnClose() {
+			network.request(SMB2MessageCommandCode.SMB2_SET_INFO, 0);
+			delegate.deleteOnClose();
+		}
+
+		@Override
+		public void flush() {
+			network.request(SMB2MessageCommandCode.SMB2_FLUSH, 0);
+			delegate.flush();
+		}
+
+		@Override
+		public void close() {
+			network.request(SMB2MessageCommandCode.SMB2_CLOSE, 0);
+			delegate.close();
+		}
+
+		@Override
+		public void closeNoWait() {
+			delegate.closeNoWait();
+		}
+
+		@Override
+		public void closeSilently() {
+			try {
+				close();
+			} catch (RuntimeException e) {
+				delegate.closeSilently();
+			}
+		}
+
+	}
+
+	private final class SimulatedDirectory extends Directory {
+
+		private final Directory delegate;
+
+		SimulatedDirectory(Directory delegate) {
+			super(delegate.getFileId(), SimulatedDiskShare.this, delegate.name);
+			this.delegate = delegate;
+		}
+
+		@Override
+		public List<FileIdBothDirectoryInformation> list() {
+			return list(FileIdBothDirectoryInformation.class, null);
+		}
+
+		@Override
+		public <F extends FileDirectoryQueryableInformation> List<F> list(Class<F> informationClass) {
+			return list(informationClass, null);
+		}
+
+		@Override
+		public <F extends FileDirectoryQueryableInformation> List<F> list(Class<F> informationClass,
+				String searchPattern) {
+			List<F> result = new ArrayList<>();
+			iterator(informationClass, searchPattern).forEachRemaining(result::add);
+			return result;
+		}
+
+		@Override
+		public Iterator<FileIdBothDirectoryInformation> iterator() {
+			return iterator(FileIdBothDirectoryInformation.class, null);
+		}
+
+		@Override
+		public <F extends FileDirectoryQueryableInformation> Iterator<F> iterator(Class<F> informationClass) {
+			return iterator(informationClass, null);
+		}
+
+		@Override
+		public <F extends FileDirectoryQueryableInformation> Iterator<F> iterator(Class<F> informationClass,
+				String searchPattern) {
+			network.request(SMB2MessageCommandCode.SMB2_QUERY_DIRECTORY, 0);
+			Iterator<F> entries = delegate.iterator(informationClass, searchPattern);
+			return new Iterator<F>() {
+
+				private long pageBytes;
+
+				@Override
+				public boolean hasNext() {
+					return entries.hasNext();
+				}
+
+				@Override
+				public F next() {
+					F entry = entries.next();
+					pageBytes += DIRECTORY_ENTRY_SIZE + 2L * entry.getFileName().length();
+					if (pageBytes >= getTransactBufferSize()) {
+						network.request(SMB2MessageCommandCode.SMB2_QUERY_DIRECTORY, pageBytes);
+						pageBytes = 0;
+					}
+					return entry;
+				}
+
+			};
+		}
+
+		@Override
+		public Future<SMB2ChangeNotifyResponse> watchAsync(Set<SMB2CompletionFilter> completionFilter,
+				boolean recursive) {
+			return delegate.watchAsync(completionFilter, recursive);
+		}
+
+		@Override
+		public FileAllInformation getFileInformation() {
+			return getFileInformation(FileAllInformation.class);
+		}
+
+		@Override
+		public <F extends FileQueryableInformation> F getFileInformation(Class<F> informationClass) {
+			network.request(SMB2MessageCommandCode.SMB2_QUERY_INFO, 0);
+			return delegate.getFileInformation(informationClass);
+		}
+
+		@Override
+		public <F extends FileSettableInformation> void setFileInformation(F information) {
+			network.request(SMB2MessageCommandCode.SMB2_SET_INFO, 0);
+			delegate.setFileInformation(information);
+		}
+
+		@Override
+		public void rename(String newName, boolean replaceIfExist) {
+			network.request(SMB2MessageCommandCode.SMB2_SET_INFO, 0);
+			delegate.rename(newName, replaceIfExist);
+		}
+
+		@Override
+		public void deleteOnClose() {
+			network.request(SMB2MessageCommandCode.SMB2_SET_INFO, 0);
+			delegate.deleteOnClose();
+		}
+
+		@Override
+		public void close() {
+			network.request(SMB2MessageCommandCode.SMB2_CLOSE, 0);
+			delegate.close();
+		}
+
+		@Override
+		public void closeNoWait() {
+			delegate.closeNoWait();
+		}
+
+		@Override
+		public void closeSilently() {
+			try {
+				close();
+			} catch (RuntimeException e) {
+				delegate.closeSilently();
+			}
+		}
+
+	}
+
+	private final DiskShare delegate;
+
+	private final Network network;
+
+	private final Executor executor;
+
+	public SimulatedDiskShare(DiskShare delegate, Network network, Executor executor) {
+		super(delegate.getSmbPath(), delegate.getTreeConnect(), PathResolver.LOCAL);
+		this.delegate = delegate;
+		this.network = network;
+		this.executor = executor;
+	}
+
+	public DiskShare getDelegate() {
+		return delegate;
+	}
+
+	int getTransactBufferSize() {
+		return Math.min(treeConnect.getConfig().getTransactBufferSize(),
+				treeConnect.getNegotiatedProtocol().getMaxTransactSize());
+	}
+
+	private void requestChunks(SMB2MessageCommandCode command, long length, int chunkSize) {
+		long remaining = length;
+		do {
+			long count = Math.min(remaining, chunkSize);
+			network.request(command, count);
+			remaining -= count;
+		} while (remaining > 0);
+	}
+
+	private DiskEntry wrap(DiskEntry entry) {
+		if (entry instanceof File) {
+			return new SimulatedFile((File) entry);
+		}
+		if (entry instanceof Directory) {
+			return new SimulatedDirectory((Directory) entry);
+		}
+		return entry;
+	}
+
+	private static File unwrap(File file) {
+		return file instanceof SimulatedFile ? ((SimulatedFile) file).delegate : file;
+	}
+
+	@Override
+	public DiskEntry open(String path, Set<AccessMask> accessMask, Set<FileAttributes> attributes,
+			Set<SMB2ShareAccess> shareAccesses, SMB2CreateDisposition createDisposition,
+			Set<SMB2CreateOptions> createOptions) {
+		network.request(SMB2MessageCommandCode.SMB2_CREATE, 0);
+		return wrap(delegate.open(path, accessMask, attributes, shareAccesses, createDisposition, createOptions));
+	}
+
+	@Override
+	public Directory openDirectory(String path, Set<AccessMask> accessMask, Set<FileAttributes> attributes,
+			Set<SMB2ShareAccess> shareAccesses, SMB2CreateDisposition createDisposition,
+			Set<SMB2CreateOptions> createOptions) {
+		network.request(SMB2MessageCommandCode.SMB2_CREATE, 0);
+		return new SimulatedDirectory(delegate.openDirectory(path, accessMask, attributes, shareAccesses,
+				createDisposition, createOptions));
+	}
+
+	@Override
+	public File openFile(String path, Set<AccessMask> accessMask, Set<FileAttributes> attributes,
+			Set<SMB2ShareAccess> shareAccesses, SMB2CreateDisposition createDisposition,
+			Set<SMB2CreateOptions> createOptions) {
+		network.request(SMB2MessageCommandCode.SMB2_CREATE, 0);
+		return new SimulatedFile(
+				delegate.openFile(path, accessMask, attributes, shareAccesses, createDisposition, createOptions));
+	}
+
+	@Override
+	public void rm(String path) {
+		network.request(SMB2MessageCommandCode.SMB2_CREATE, 0);
+		network.request(SMB2MessageCommandCode.SMB2_SET_INFO, 0);
+		network.request(SMB2MessageCommandCode.SMB2_CLOSE, 0);
+		delegate.rm(path);
+	}
+
+	@Override
+	public ShareInfo getShareInformation() {
+		network.request(SMB2MessageCommandCode.SMB2_QUERY_INFO, 0);
+		return delegate.getShareInformation();
+	}
+
+	@Override
+	public boolean isConnected() {
+		return delegate.isConnected();
+	}
+
+	@Override
+	public void close() throws IOException {
+		delegate.close();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof SimulatedDiskShare && ((SimulatedDiskShare) obj).delegate.equals(delegate);
+	}
+
+	@Override
+	public int hashCode() {
+		return delegate.hashCode();
+	}
+
+}
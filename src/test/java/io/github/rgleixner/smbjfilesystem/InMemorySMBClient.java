@@ -0,0 +1,86 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hierynomus.smbj.SMBClient;
+import com.hierynomus.smbj.SmbConfig;
+import com.hierynomus.smbj.auth.AuthenticationContext;
+import com.hierynomus.smbj.connection.Connection;
+import com.hierynomus.smbj.event.SMBEventBus;
+import com.hierynomus.smbj.paths.PathResolver;
+import com.hierynomus.smbj.server.ServerList;
+import com.hierynomus.smbj.session.Session;
+import com.hierynomus.smbj.share.InMemoryDiskShare;
+import com.hierynomus.smbj.share.Share;
+
+public final class InMemorySMBClient extends SMBClient {
+
+	private final SmbConfig config = SmbConfig.createDefaultConfig();
+
+	private final Map<String, InMemoryDiskShare> shares = new ConcurrentHashMap<>();
+
+	private final AtomicInteger connections = new AtomicInteger();
+
+	private final AtomicInteger openConnections = new AtomicInteger();
+
+	@Override
+	public Connection connect(String hostname) {
+		return connect(hostname, DEFAULT_PORT);
+	}
+
+	@Override
+	public Connection connect(String hostname, int port) {
+		this.connections.incrementAndGet();
+		this.openConnections.incrementAndGet();
+		SMBEventBus bus = new SMBEventBus();
+		return new Connection(this.config, this, bus, new ServerList()) {
+
+			private volatile boolean connected = true;
+
+			@Override
+			public Session authenticate(AuthenticationContext authContext) {
+				return new Session(this, InMemorySMBClient.this.config, authContext, bus, PathResolver.LOCAL, null,
+						null) {
+
+					@Override
+					public Share connectShare(String shareName) {
+						return InMemorySMBClient.this.shares.compute(hostname + "/" + shareName,
+								(key, share) -> share != null && share.isConnected() ? share
+										: new InMemoryDiskShare(hostname, shareName, InMemorySMBClient.this.config,
+												false));
+					}
+
+					@Override
+					public void close() {
+					}
+
+				};
+			}
+
+			@Override
+			public boolean isConnected() {
+				return this.connected;
+			}
+
+			@Override
+			public void close(boolean force) {
+				if (this.connected) {
+					this.connected = false;
+					InMemorySMBClient.this.openConnections.decrementAndGet();
+				}
+			}
+
+		};
+	}
+
+	public int getConnectionCount() {
+		return this.connections.get();
+	}
+
+	public int getOpenConnectionCount() {
+		return this.openConnections.get();
+	}
+
+}
@@ -0,0 +1,47 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.net.URI;
+import java.util.Map;
+
+import com.hierynomus.smbj.SmbConfig;
+import com.hierynomus.smbj.share.DiskShare;
+import com.hierynomus.smbj.share.InMemoryDiskShare;
+
+public final class InMemorySMBClientWrapper implements SMBClientWrapper {
+
+	public static final String PROPERTY_SERVER_SIDE_COPY = "smbj-filesystem.benchmark.server-side-copy";
+
+	private final InMemoryDiskShare share;
+
+	public InMemorySMBClientWrapper(URI uri, boolean serverSideCopy) {
+		this.share = new InMemoryDiskShare(uri.getHost(), uri.getPath().substring(1), SmbConfig.createDefaultConfig(),
+				serverSideCopy);
+	}
+
+	public static InMemorySMBClientWrapper create(Map<String, ?> env) {
+		return new InMemorySMBClientWrapper((URI) env.get(SMBFileSystemProvider.PROPERTY_FQN),
+				Boolean.parseBoolean(String.valueOf(env.get(PROPERTY_SERVER_SIDE_COPY))));
+	}
+
+	@Override
+	public SMBShareWrapper getShare() {
+		return new SMBShareWrapper() {
+
+			@Override
+			public DiskShare getSmbShare() {
+				return share;
+			}
+
+			@Override
+			public void close() {
+			}
+
+		};
+	}
+
+	@Override
+	public void close() {
+		share.close();
+	}
+
+}
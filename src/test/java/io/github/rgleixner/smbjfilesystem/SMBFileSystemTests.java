@@ -1,13 +1,64 @@
 package io.github.rgleixner.smbjfilesystem;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hierynomus.msdtyp.FileTime;
+import com.hierynomus.mserref.NtStatus;
+import com.hierynomus.msfscc.FileAttributes;
+import com.hierynomus.mssmb2.SMB2CreateOptions;
+import com.hierynomus.mssmb2.SMB2Dialect;
+import com.hierynomus.mssmb2.SMB2MessageCommandCode;
+import com.hierynomus.mssmb2.SMBApiException;
+import com.hierynomus.protocol.transport.TransportException;
+import com.hierynomus.smbj.SMBClient;
+import com.hierynomus.smbj.SmbConfig;
+import com.hierynomus.smbj.auth.AuthenticationContext;
+import com.hierynomus.smbj.common.SMBRuntimeException;
 
 public class SMBFileSystemTests {
 
@@ -58,4 +109,753 @@ public class SMBFileSystemTests {
 				.isEqualTo("smb://host/share/path/sub/!'()~%20%C3%A4%C3%B6%C3%BC%C3%9F");
 	}
 
+	@Test
+	public void testSearchPattern() {
+		Assertions.assertThat(SMBPathMatcher.globToSearchPattern("*.csv")).isEqualTo("*.csv");
+		Assertions.assertThat(SMBPathMatcher.globToSearchPattern("report-??.txt")).isEqualTo("report-??.txt");
+		Assertions.assertThat(SMBPathMatcher.globToSearchPattern("*.{csv,txt}")).isNull();
+		Assertions.assertThat(SMBPathMatcher.globToSearchPattern("[ab]*")).isNull();
+		Assertions.assertThat(SMBPathMatcher.globToSearchPattern("**/*.csv")).isNull();
+	}
+
+	@Test
+	public void testPathMatcher() {
+		Path path = Path.of(URI.create("smb://host/share/path/sub"));
+		PathMatcher star = path.getFileSystem().getPathMatcher("glob:/path/*");
+		PathMatcher doubleStar = path.getFileSystem().getPathMatcher("glob:/**");
+		PathMatcher suffix = path.getFileSystem().getPathMatcher("glob:*.csv");
+		PathMatcher group = path.getFileSystem().getPathMatcher("glob:/path/{sub,other}");
+		PathMatcher bracket = path.getFileSystem().getPathMatcher("glob:/path/[!a-r]ub");
+
+		Assertions.assertThat(star.matches(path)).isTrue();
+		Assertions.assertThat(star.matches(path.resolve("deeper"))).isFalse();
+		Assertions.assertThat(doubleStar.matches(path.resolve("deeper"))).isTrue();
+		Assertions.assertThat(suffix.matches(path.getFileSystem().getPath("data.csv"))).isTrue();
+		Assertions.assertThat(suffix.matches(path.getFileSystem().getPath("dir/data.csv"))).isFalse();
+		Assertions.assertThat(group.matches(path)).isTrue();
+		Assertions.assertThat(bracket.matches(path)).isTrue();
+	}
+
+	@Test
+	public void testPathMatcherSet() {
+		SMBFileSystem fileSystem = (SMBFileSystem) Path.of(URI.create("smb://host/share/path/sub")).getFileSystem();
+		PathMatcher matcher = fileSystem.getPathMatcher(List.of("glob:/exact", "glob:**.csv", "regex:/tmp/.*"));
+
+		Assertions.assertThat(matcher.matches(fileSystem.getPath("/exact"))).isTrue();
+		Assertions.assertThat(matcher.matches(fileSystem.getPath("/a/b/c.csv"))).isTrue();
+		Assertions.assertThat(matcher.matches(fileSystem.getPath("/tmp/x"))).isTrue();
+		Assertions.assertThat(matcher.matches(fileSystem.getPath("/other"))).isFalse();
+
+		PathMatcher regexes = fileSystem.getPathMatcher(List.of("regex:/(x)y", "regex:/(a)\\1", "regex:(?i)/upper/.*",
+				"regex:/(?<n>b)\\k<n>", "regex:/tmp/.*"));
+		Assertions.assertThat(regexes.matches(fileSystem.getPath("/xy"))).isTrue();
+		Assertions.assertThat(regexes.matches(fileSystem.getPath("/aa"))).isTrue();
+		Assertions.assertThat(regexes.matches(fileSystem.getPath("/ab"))).isFalse();
+		Assertions.assertThat(regexes.matches(fileSystem.getPath("/UPPER/x"))).isTrue();
+		Assertions.assertThat(regexes.matches(fileSystem.getPath("/bb"))).isTrue();
+		Assertions.assertThat(regexes.matches(fileSystem.getPath("/TMP/x"))).isFalse();
+	}
+
+	@Test
+	public void testPathOperations() {
+		Path path = Path.of(URI.create("smb://host/share/path/sub/"));
+		Path file = path.resolve("file.txt");
+
+		Assertions.assertThat(file.toString()).isEqualTo("/path/sub/file.txt");
+		Assertions.assertThat(file).isEqualTo(path.getFileSystem().getPath("/path/sub/file.txt"));
+		Assertions.assertThat(file.hashCode()).isEqualTo(path.getFileSystem().getPath("/path/sub/file.txt").hashCode());
+		Assertions.assertThat(file.getParent()).isEqualTo(path);
+		Assertions.assertThat(file.getParent().toString()).isEqualTo("/path/sub/");
+		Assertions.assertThat(file.getFileName().toString()).isEqualTo("file.txt");
+		Assertions.assertThat(file.subpath(1, 3)).isEqualTo(path.getFileSystem().getPath("sub/file.txt"));
+		Assertions.assertThat(file.getName(1).getFileName()).isEqualTo(path.getFileSystem().getPath("sub"));
+		Assertions.assertThat(file.startsWith(path)).isTrue();
+		Assertions.assertThat(path.relativize(file).toString()).isEqualTo("file.txt");
+		Assertions.assertThat(path.resolve("../other/./x").normalize().toString()).isEqualTo("/path/other/x");
+		Assertions.assertThat(path.getFileSystem().getPath("a", "b").toAbsolutePath().toString()).isEqualTo("/a/b");
+		Assertions.assertThat(SMBPathUtil.splitPath("//a/b//")).containsExactly("", "a", "b");
+		Assertions.assertThat(SMBPathUtil.splitPath("/")).isEmpty();
+	}
+
+	@Test
+	public void testRangeCopy() throws Exception {
+		byte[] source = new byte[100_003];
+		new Random(42).nextBytes(source);
+		byte[] target = new byte[source.length];
+		AtomicLong progress = new AtomicLong();
+
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			new SMBRangeCopy(executor, 3, 4096, (transferred, total) -> progress.set(transferred)).copy(
+					(buffer, position, offset, length) -> {
+						int count = Math.min(length, 1000);
+						System.arraycopy(source, (int) position, buffer, offset, count);
+						return count;
+					}, (buffer, position, offset, length) -> {
+						System.arraycopy(buffer, offset, target, (int) position, length);
+						return length;
+					}, source.length);
+		} finally {
+			executor.shutdown();
+		}
+
+		Assertions.assertThat(target).isEqualTo(source);
+		Assertions.assertThat(progress.get()).isEqualTo(source.length);
+	}
+
+	@Test
+	public void testRangeCopyFileChannel(@TempDir Path directory) throws Exception {
+		byte[] data = new byte[70_000];
+		new Random(7).nextBytes(data);
+		Path source = Files.write(directory.resolve("source"), data);
+		Path target = directory.resolve("target");
+
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+			new SMBRangeCopy(executor, 4, 8192, null).copy(SMBRangeCopy.source(in), SMBRangeCopy.target(out),
+					in.size());
+		} finally {
+			executor.shutdown();
+		}
+
+		Assertions.assertThat(Files.readAllBytes(target)).isEqualTo(data);
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		SMBFileSystem fileSystem = (SMBFileSystem) Path.of(URI.create("smb://host/share/path/sub")).getFileSystem();
+		List<Path> paths = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			paths.add(fileSystem.getPath("/batch/" + i));
+		}
+
+		List<SMBBatchResult<String>> results = new SMBBatch(fileSystem.getExecutor(), 4).run(paths, path -> {
+			if (path.getFileName().toString().equals("13")) {
+				throw new NoSuchFileException(path.toString());
+			}
+			return path.getFileName().toString();
+		});
+
+		Assertions.assertThat(results).extracting(SMBBatchResult::getPath).isEqualTo(paths);
+		Assertions.assertThat(results.get(7).getValue()).isEqualTo("7");
+		Assertions.assertThat(results.get(13).isSuccess()).isFalse();
+		Assertions.assertThat(results.get(13).getError()).isInstanceOf(NoSuchFileException.class);
+
+		SMBFileSystem share = newFileSystem("batch", Map.of(), InMemorySMBClientWrapper::create);
+		Files.write(share.getPath("/file.txt"), new byte[1]);
+		List<Path> directories = List.of(share.getPath("/"), share.getPath("/a/.."), share.getPath("/x/y"),
+				share.getPath("/x"), share.getPath("/file.txt"));
+		List<SMBBatchResult<Void>> created = share.createDirectories(directories);
+		Assertions.assertThat(created).extracting(SMBBatchResult::getPath).isEqualTo(directories);
+		Assertions.assertThat(created).extracting(SMBBatchResult::isSuccess).containsExactly(true, true, true, true,
+				false);
+		Assertions.assertThat(created.get(4).getError()).isInstanceOf(FileAlreadyExistsException.class);
+		Assertions.assertThat(Files.isDirectory(share.getPath("/x/y"))).isTrue();
+		share.close();
+	}
+
+	@Test
+	public void testWatchService() throws Exception {
+		Path path = Path.of(URI.create("smb://host/share/path/sub"));
+		WatchService watchService = path.getFileSystem().newWatchService();
+		Assertions.assertThat(watchService.poll()).isNull();
+		Assertions.assertThatThrownBy(() -> path.register(watchService, StandardWatchEventKinds.OVERFLOW))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		watchService.close();
+		Assertions.assertThatThrownBy(watchService::take).isInstanceOf(ClosedWatchServiceException.class);
+		Assertions.assertThatThrownBy(watchService::poll).isInstanceOf(ClosedWatchServiceException.class);
+	}
+
+	@Test
+	public void testWatchServiceEvents() throws Exception {
+		SMBFileSystem fileSystem = newFileSystem("watch", Map.of(), InMemorySMBClientWrapper::create);
+		Path directory = fileSystem.getPath("/watched");
+		Files.createDirectory(directory);
+		try (WatchService watchService = fileSystem.newWatchService()) {
+			WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_DELETE);
+			Files.createFile(directory.resolve("created.txt"));
+			Assertions.assertThat(watchService.poll(5, TimeUnit.SECONDS)).isSameAs(key);
+			List<WatchEvent<?>> events = key.pollEvents();
+			Assertions.assertThat(events).extracting(event -> (Object) event.kind())
+					.containsExactly(StandardWatchEventKinds.ENTRY_CREATE);
+			Assertions.assertThat(events.get(0).context()).hasToString("created.txt");
+			Assertions.assertThat(key.reset()).isTrue();
+
+			Files.delete(directory.resolve("created.txt"));
+			Assertions.assertThat(watchService.poll(5, TimeUnit.SECONDS)).isSameAs(key);
+			Assertions.assertThat(key.pollEvents()).extracting(event -> (Object) event.kind())
+					.containsExactly(StandardWatchEventKinds.ENTRY_DELETE);
+
+			key.cancel();
+			Assertions.assertThat(key.isValid()).isFalse();
+		}
+		fileSystem.close();
+	}
+
+	@Test
+	public void testWatchKeyOverflow() {
+		SMBPath directory = (SMBPath) Path.of(URI.create("smb://host/share/watched"));
+		SMBWatchKey key = new SMBWatchKey(new SMBWatchService(directory.getFileSystem()), directory,
+				Set.of(StandardWatchEventKinds.ENTRY_CREATE), false);
+		for (int i = 0; i < 600; i++) {
+			key.addEvent(StandardWatchEventKinds.ENTRY_CREATE, directory.resolve("entry-" + i));
+		}
+		List<WatchEvent<?>> events = key.pollEvents();
+		Assertions.assertThat(events).hasSize(513);
+		Assertions.assertThat(events.get(512).kind()).isEqualTo(StandardWatchEventKinds.OVERFLOW);
+		Assertions.assertThat(events.get(512).count()).isEqualTo(88);
+		Assertions.assertThat(key.pollEvents()).isEmpty();
+	}
+
+	@Test
+	public void testMetricsRecorder() {
+		SMBMetricsRecorder recorder = new SMBMetricsRecorder();
+		for (int i = 0; i < 99; i++) {
+			recorder.recordOperation("host/share", "read", 1_000_000, true);
+		}
+		recorder.recordOperation("host/share", "read", 1_000_000_000, false);
+		recorder.recordBytes("host/share", "read", 4096);
+		recorder.recordShareWait("host/share", 2_000_000);
+
+		Assertions.assertThat(recorder.getOperationCounts()).containsEntry("read", 100L);
+		Assertions.assertThat(recorder.getErrorCounts()).containsEntry("read", 1L);
+		Assertions.assertThat(recorder.getBytesTransferred()).containsEntry("read", 4096L);
+		Assertions.assertThat(recorder.getLatencyPercentileMillis(50).get("read")).isBetween(1.0, 2.1);
+		Assertions.assertThat(recorder.getLatencyPercentileMillis(100).get("read")).isGreaterThan(1000.0);
+		Assertions.assertThat(recorder.getMeanShareWaitMillis()).isEqualTo(2.0);
+	}
+
+	@Test
+	public void testTuningProfile() {
+		URI fqn = URI.create("smb://host/share");
+		Map<String, Object> env = SMBFileSystemProvider.createEnvironment(fqn,
+				Map.of(SMBFileSystemProvider.PROPERTY_PROFILE, "wan-latency", SMBFileSystemProvider.PROPERTY_READ_AHEAD,
+						4, SMBFileSystemProvider.PROPERTY_DIALECTS, "SMB_3_1_1, SMB_3_0_2"));
+		Assertions.assertThat(env).containsEntry(SMBFileSystemProvider.PROPERTY_FQN, fqn)
+				.containsEntry(SMBFileSystemProvider.PROPERTY_READ_AHEAD, 4)
+				.containsEntry(SMBFileSystemProvider.PROPERTY_WRITE_BEHIND, 16);
+
+		SmbConfig config = SMBFileSystemProvider.createConfig(env);
+		Assertions.assertThat(config.getReadBufferSize()).isEqualTo(1024 * 1024);
+		Assertions.assertThat(config.getReadTimeout()).isEqualTo(180_000);
+		Assertions.assertThat(config.getSupportedDialects()).containsExactlyInAnyOrder(SMB2Dialect.SMB_3_1_1,
+				SMB2Dialect.SMB_3_0_2);
+
+		SmbConfig singleCredit = SMBFileSystemProvider.createConfig(Map.of(SMBFileSystemProvider.PROPERTY_MULTI_CREDIT,
+				"false", SMBFileSystemProvider.PROPERTY_READ_BUFFER_SIZE, 8 * 1024 * 1024));
+		Assertions.assertThat(singleCredit.getReadBufferSize()).isEqualTo(64 * 1024);
+		Assertions.assertThatThrownBy(() -> SMBTuningProfile.of("unknown"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testConnectionPool() throws Exception {
+		InMemorySMBClient client = new InMemorySMBClient();
+		SMBClientWrapper wrapper = new SMBClientWrapper.SMBClientWrapperImpl(URI.create("smb://host/share"),
+				() -> client, new AuthenticationContext("user", new char[0], null), 2);
+		SMBClientWrapper.SMBShareWrapper first = wrapper.getShare();
+		SMBClientWrapper.SMBShareWrapper second = wrapper.getShare();
+		Assertions.assertThat(client.getConnectionCount()).isEqualTo(2);
+		Assertions.assertThat(first.getSmbShare().isConnected()).isTrue();
+
+		first.close();
+		SMBClientWrapper.SMBShareWrapper third = wrapper.getShare();
+		second.close();
+		third.close();
+		Assertions.assertThat(client.getConnectionCount()).isEqualTo(2);
+
+		wrapper.close();
+		Assertions.assertThat(client.getOpenConnectionCount()).isZero();
+	}
+
+	@Test
+	public void testSessionRegistry() {
+		SMBSessionRegistry registry = new SMBSessionRegistry();
+		AuthenticationContext user = new AuthenticationContext("user", "secret".toCharArray(), "domain");
+		AuthenticationContext other = new AuthenticationContext("user", "other".toCharArray(), "domain");
+		SMBSessionRegistry.Lease first = registry.acquire("client", SMBClient::new, "HOST", 445, user);
+		SMBSessionRegistry.Lease second = registry.acquire("client", SMBClient::new, "host", 445, user);
+		SMBSessionRegistry.Lease third = registry.acquire("client", SMBClient::new, "host", 445, other);
+		Assertions.assertThat(registry.getSessionCount()).isEqualTo(2);
+		Assertions.assertThat(registry.getClientCount()).isEqualTo(1);
+
+		first.close();
+		first.close();
+		third.close();
+		Assertions.assertThat(registry.getSessionCount()).isEqualTo(1);
+		second.close();
+		Assertions.assertThat(registry.getSessionCount()).isZero();
+		Assertions.assertThat(registry.getClientCount()).isZero();
+
+		SMB2MessageCommandCode treeConnect = SMB2MessageCommandCode.SMB2_TREE_CONNECT;
+		Assertions.assertThat(SMBSessionRegistry.isSessionFailure(
+				new SMBApiException(NtStatus.STATUS_BAD_NETWORK_NAME.getValue(), treeConnect, null))).isFalse();
+		Assertions.assertThat(SMBSessionRegistry.isSessionFailure(
+				new SMBApiException(NtStatus.STATUS_ACCESS_DENIED.getValue(), treeConnect, null))).isFalse();
+		Assertions.assertThat(SMBSessionRegistry.isSessionFailure(
+				new SMBApiException(NtStatus.STATUS_USER_SESSION_DELETED.getValue(), treeConnect, null))).isTrue();
+		Assertions.assertThat(
+				SMBSessionRegistry.isSessionFailure(new SMBRuntimeException(new TransportException("reset"))))
+				.isTrue();
+	}
+
+	@Test
+	public void testReconnectableFailures() {
+		Assertions.assertThat(SMBFileHandle.isReconnectable(new SMBApiException(
+				NtStatus.STATUS_NETWORK_NAME_DELETED.getValue(), SMB2MessageCommandCode.SMB2_READ, null))).isTrue();
+		Assertions.assertThat(SMBFileHandle.isReconnectable(new SMBRuntimeException(new TransportException("reset"))))
+				.isTrue();
+		Assertions.assertThat(SMBFileHandle.isReconnectable(new SMBApiException(
+				NtStatus.STATUS_ACCESS_DENIED.getValue(), SMB2MessageCommandCode.SMB2_WRITE, null))).isFalse();
+	}
+
+	@Test
+	public void testAttributeCache() {
+		SMBPath root = (SMBPath) Path.of(URI.create("smb://host/share/"));
+		SMBPath dir = (SMBPath) root.resolve("dir");
+		SMBPath child = (SMBPath) dir.resolve("child");
+		SMBPath sibling = (SMBPath) root.resolve("dir2");
+		SMBFileAttributes attributes = new SMBFileAttributes(FileTime.ofEpochMillis(0), FileTime.ofEpochMillis(0),
+				FileTime.ofEpochMillis(0), 0, 42, 1);
+
+		SMBAttributeCache expiring = new SMBAttributeCache(10, 0);
+		expiring.put(child, attributes, expiring.getGeneration());
+		Assertions.assertThat(expiring.get(child)).isNull();
+
+		SMBAttributeCache cache = new SMBAttributeCache(2, 60_000);
+		cache.put(dir, attributes, cache.getGeneration());
+		cache.put(child, attributes, cache.getGeneration());
+		cache.get(dir);
+		cache.put(sibling, attributes, cache.getGeneration());
+		Assertions.assertThat(cache.get(child)).isNull();
+		Assertions.assertThat(cache.get(dir)).isSameAs(attributes);
+		Assertions.assertThat(cache.get(sibling)).isSameAs(attributes);
+
+		cache.put(child, attributes, cache.getGeneration());
+		cache.invalidateTree(dir);
+		Assertions.assertThat(cache.get(dir)).isNull();
+		Assertions.assertThat(cache.get(child)).isNull();
+		Assertions.assertThat(cache.get(sibling)).isSameAs(attributes);
+
+		long generation = cache.getGeneration();
+		cache.invalidate(child);
+		cache.put(child, attributes, generation);
+		cache.put(sibling, attributes, generation);
+		Assertions.assertThat(cache.get(child)).isNull();
+		Assertions.assertThat(cache.get(sibling)).isSameAs(attributes);
+
+		generation = cache.getGeneration();
+		cache.invalidateTree(dir);
+		cache.put(child, attributes, generation);
+		Assertions.assertThat(cache.get(child)).isNull();
+	}
+
+	@Test
+	public void testWriteInvalidatesAttributes() throws Exception {
+		SMBFileSystem fileSystem = newFileSystem("invalidation",
+				Map.of(SMBFileSystemProvider.PROPERTY_ATTRIBUTE_CACHE_SIZE, 16,
+						SMBFileSystemProvider.PROPERTY_ATTRIBUTE_CACHE_TTL, 60_000,
+						SMBFileSystemProvider.PROPERTY_WRITE_BEHIND, 2),
+				InMemorySMBClientWrapper::create);
+		Path file = fileSystem.getPath("/attributes.bin");
+		try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(16));
+			Assertions.assertThat(Files.size(file)).isZero();
+			channel.write(ByteBuffer.allocate(16));
+		}
+		Assertions.assertThat(Files.size(file)).isEqualTo(32);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(8), 32);
+			Assertions.assertThat(Files.size(file)).isEqualTo(40);
+			channel.write(ByteBuffer.allocate(8), 40);
+		}
+		Assertions.assertThat(Files.size(file)).isEqualTo(48);
+		fileSystem.close();
+	}
+
+	@Test
+	public void testTreeDeleterReparsePoints() {
+		FileTime time = FileTime.ofEpochMillis(0);
+		SMBFileAttributes directory = new SMBFileAttributes(time, time, time,
+				FileAttributes.FILE_ATTRIBUTE_DIRECTORY.getValue(), 0, 1);
+		long junctionAttributes = FileAttributes.FILE_ATTRIBUTE_DIRECTORY.getValue()
+				| FileAttributes.FILE_ATTRIBUTE_REPARSE_POINT.getValue();
+		SMBFileAttributes junction = new SMBFileAttributes(time, time, time, junctionAttributes, 0, 2);
+		SMBFileAttributes file = new SMBFileAttributes(time, time, time,
+				FileAttributes.FILE_ATTRIBUTE_NORMAL.getValue(), 0, 3);
+
+		Assertions.assertThat(SMBTreeDeleter.isTraversable(directory)).isTrue();
+		Assertions.assertThat(SMBTreeDeleter.isTraversable(junction)).isFalse();
+		Assertions.assertThat(SMBTreeDeleter.isTraversable(file)).isFalse();
+		Assertions.assertThat(SMBTreeDeleter.getDeleteOptions(junction)).containsExactlyInAnyOrder(
+				SMB2CreateOptions.FILE_DELETE_ON_CLOSE, SMB2CreateOptions.FILE_OPEN_REPARSE_POINT);
+		Assertions.assertThat(SMBTreeDeleter.getDeleteOptions(directory))
+				.contains(SMB2CreateOptions.FILE_DIRECTORY_FILE);
+	}
+
+	@Test
+	public void testContentCache() {
+		SMBPath root = (SMBPath) Path.of(URI.create("smb://host/share/"));
+		SMBPath dir = (SMBPath) root.resolve("dir");
+		SMBPath first = (SMBPath) dir.resolve("first");
+		SMBPath second = (SMBPath) root.resolve("dir2");
+		SMBPath third = (SMBPath) root.resolve("third");
+		SMBContentCache cache = new SMBContentCache(10, 4);
+
+		cache.put(first, 1, 2, new byte[4], cache.getGeneration());
+		cache.put(second, 1, 2, new byte[4], cache.getGeneration());
+		cache.put(third, 1, 2, new byte[5], cache.getGeneration());
+		Assertions.assertThat(cache.getSize()).isEqualTo(8);
+		Assertions.assertThat(cache.get(first, 4, 1, 2)).hasSize(4);
+		Assertions.assertThat(cache.get(first, 4, 1, 3)).isNull();
+		Assertions.assertThat(cache.getSize()).isEqualTo(4);
+
+		cache.put(first, 1, 2, new byte[4], cache.getGeneration());
+		cache.get(second, 4, 1, 2);
+		cache.put(third, 1, 2, new byte[3], cache.getGeneration());
+		Assertions.assertThat(cache.get(first, 4, 1, 2)).isNull();
+		Assertions.assertThat(cache.get(second, 4, 1, 2)).isNotNull();
+		Assertions.assertThat(cache.getSize()).isEqualTo(7);
+
+		cache.put(first, 1, 2, new byte[1], cache.getGeneration());
+		cache.invalidateTree(dir);
+		Assertions.assertThat(cache.get(first, 1, 1, 2)).isNull();
+		Assertions.assertThat(cache.get(second, 4, 1, 2)).isNotNull();
+		Assertions.assertThat(cache.getSize()).isEqualTo(7);
+
+		SMBContentCache.Fill fill = cache.fill(first, 4, 1, 2, cache.getGeneration());
+		Assertions.assertThat(cache.fill(first, 5, 1, 2, cache.getGeneration())).isNull();
+		Assertions.assertThat(fill.append(ByteBuffer.wrap(new byte[] { 1, 2 }), 0)).isTrue();
+		Assertions.assertThat(fill.append(ByteBuffer.wrap(new byte[] { 4 }), 3)).isFalse();
+		Assertions.assertThat(fill.append(ByteBuffer.wrap(new byte[] { 3, 4 }), 2)).isTrue();
+		Assertions.assertThat(fill.isComplete()).isTrue();
+		Assertions.assertThat(cache.get(first, 4, 1, 2)).containsExactly(1, 2, 3, 4);
+
+		SMBContentCache.Fill stale = cache.fill(third, 2, 1, 2, cache.getGeneration());
+		cache.invalidate(third);
+		stale.append(ByteBuffer.wrap(new byte[2]), 0);
+		Assertions.assertThat(cache.get(third, 2, 1, 2)).isNull();
+	}
+
+	@Test
+	public void testContentCacheChannel() throws Exception {
+		AtomicReference<SimulatedSMBClientWrapper> wrapper = new AtomicReference<>();
+		SMBFileSystem fileSystem = newFileSystem("content",
+				Map.of(SMBFileSystemProvider.PROPERTY_CONTENT_CACHE_SIZE, 1024,
+						SMBFileSystemProvider.PROPERTY_CONTENT_CACHE_MAX_ENTRY_SIZE, 16,
+						SMBFileSystemProvider.PROPERTY_ATTRIBUTE_CACHE_SIZE, 16),
+				env -> wrapper.updateAndGet(
+						w -> SimulatedSMBClientWrapper.create(InMemorySMBClientWrapper.create(env), env)));
+		Path small = Files.write(fileSystem.getPath("/small.txt"), new byte[] { 1, 2, 3 });
+		Path large = Files.write(fileSystem.getPath("/large.bin"), new byte[100]);
+		SMBNetworkSimulator simulator = wrapper.get().getSimulator();
+
+		Assertions.assertThat(Files.size(large)).isEqualTo(100);
+		long queries = simulator.getRequestCount(SMB2MessageCommandCode.SMB2_QUERY_INFO);
+		try (SeekableByteChannel channel = Files.newByteChannel(large)) {
+			Assertions.assertThat(channel.read(ByteBuffer.allocate(128))).isEqualTo(100);
+		}
+		Assertions.assertThat(simulator.getRequestCount(SMB2MessageCommandCode.SMB2_QUERY_INFO)).isEqualTo(queries);
+
+		Assertions.assertThat(Files.readAllBytes(small)).containsExactly(1, 2, 3);
+		long reads = simulator.getRequestCount(SMB2MessageCommandCode.SMB2_READ);
+		Assertions.assertThat(Files.readAllBytes(small)).containsExactly(1, 2, 3);
+		Assertions.assertThat(simulator.getRequestCount(SMB2MessageCommandCode.SMB2_READ)).isEqualTo(reads);
+		fileSystem.close();
+	}
+
+	@Test
+	public void testAsyncCompleter() throws Exception {
+		SMBAsyncCompleter completer = new SMBAsyncCompleter("test-completer", 1);
+		CompletableFuture<Long> later = new CompletableFuture<>();
+		CompletableFuture<Object> result = new CompletableFuture<>();
+		completer.whenDone(later, (value, error) -> result.complete(error != null ? error : value));
+		CompletableFuture<Object> executed = new CompletableFuture<>();
+		completer.execute(() -> "done", (value, error) -> executed.complete(value));
+		Assertions.assertThat(executed.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+		later.complete(42L);
+		Assertions.assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42L);
+
+		CompletableFuture<Object> failed = new CompletableFuture<>();
+		completer.whenDone(CompletableFuture.failedFuture(new TransportException("lost")),
+				(value, error) -> failed.complete(error));
+		Assertions.assertThat(failed.get(5, TimeUnit.SECONDS)).isInstanceOf(TransportException.class);
+
+		CompletableFuture<Object> closed = new CompletableFuture<>();
+		completer.whenDone(new CompletableFuture<Long>(), (value, error) -> closed.complete(error));
+		completer.close();
+		Assertions.assertThat(closed.get(5, TimeUnit.SECONDS)).isInstanceOf(ClosedFileSystemException.class);
+	}
+
+	@Test
+	public void testAsynchronousFileChannel() throws Exception {
+		AtomicReference<SimulatedSMBClientWrapper> wrapper = new AtomicReference<>();
+		SMBFileSystem fileSystem = newFileSystem("async", Map.of(), env -> wrapper
+				.updateAndGet(w -> SimulatedSMBClientWrapper.create(InMemorySMBClientWrapper.create(env), env)));
+		Path file = fileSystem.getPath("/async.bin");
+		byte[] data = new byte[200_000];
+		new Random(1).nextBytes(data);
+
+		try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+			ByteBuffer source = ByteBuffer.wrap(data);
+			while (source.hasRemaining()) {
+				channel.write(source, source.position()).get(5, TimeUnit.SECONDS);
+			}
+			ByteBuffer target = ByteBuffer.allocate(data.length);
+			while (target.hasRemaining() && channel.read(target, target.position()).get(5, TimeUnit.SECONDS) > 0) {
+			}
+			Assertions.assertThat(target.array()).isEqualTo(data);
+			Assertions.assertThat(channel.read(ByteBuffer.allocate(16), data.length).get(5, TimeUnit.SECONDS))
+					.isEqualTo(-1);
+
+			CompletableFuture<Integer> handled = new CompletableFuture<>();
+			channel.read(ByteBuffer.allocate(16), 0, handled,
+					new CompletionHandler<Integer, CompletableFuture<Integer>>() {
+
+						@Override
+						public void completed(Integer result, CompletableFuture<Integer> attachment) {
+							attachment.complete(result);
+						}
+
+						@Override
+						public void failed(Throwable exc, CompletableFuture<Integer> attachment) {
+							attachment.completeExceptionally(exc);
+						}
+
+					});
+			Assertions.assertThat(handled.get(5, TimeUnit.SECONDS)).isEqualTo(16);
+
+			wrapper.get().getSimulator().injectFault(SMB2MessageCommandCode.SMB2_WRITE, NtStatus.STATUS_ACCESS_DENIED);
+			Future<Integer> denied = channel.write(ByteBuffer.wrap(data), 0);
+			Assertions.assertThatThrownBy(() -> denied.get(5, TimeUnit.SECONDS))
+					.hasCauseInstanceOf(AccessDeniedException.class);
+		}
+		fileSystem.close();
+	}
+
+	@Test
+	public void testReadAhead() throws Exception {
+		AtomicReference<SimulatedSMBClientWrapper> wrapper = new AtomicReference<>();
+		SMBFileSystem fileSystem = newFileSystem("read-ahead", Map.of(SMBFileSystemProvider.PROPERTY_READ_AHEAD, 4),
+				env -> wrapper.updateAndGet(
+						w -> SimulatedSMBClientWrapper.create(InMemorySMBClientWrapper.create(env), env)));
+		Path file = fileSystem.getPath("/read-ahead.bin");
+		Files.write(file, new byte[0]);
+		int chunkSize;
+		try (SMBSeekableByteChannel channel = (SMBSeekableByteChannel) Files.newByteChannel(file)) {
+			chunkSize = channel.getReadSize();
+		}
+		byte[] data = new byte[chunkSize * 2 + chunkSize / 2];
+		new Random(2).nextBytes(data);
+		Files.write(file, data);
+
+		try (SMBSeekableByteChannel channel = (SMBSeekableByteChannel) Files.newByteChannel(file)) {
+			ByteBuffer target = ByteBuffer.allocate(data.length);
+			ByteBuffer slice = ByteBuffer.allocate(chunkSize / 3);
+			while (channel.read(slice.clear()) > 0) {
+				target.put(slice.flip());
+			}
+			Assertions.assertThat(target.array()).isEqualTo(data);
+
+			SMBNetworkSimulator simulator = wrapper.get().getSimulator();
+			long reads = simulator.getRequestCount(SMB2MessageCommandCode.SMB2_READ);
+			for (int i = 0; i < 3; i++) {
+				Assertions.assertThat(channel.read(slice.clear())).isEqualTo(-1);
+			}
+			Assertions.assertThat(simulator.getRequestCount(SMB2MessageCommandCode.SMB2_READ)).isEqualTo(reads);
+
+			channel.position(data.length - 10);
+			Assertions.assertThat(channel.read(ByteBuffer.allocate(100))).isEqualTo(10);
+			Assertions.assertThat(channel.read(ByteBuffer.allocate(100))).isEqualTo(-1);
+			channel.position(data.length + 100);
+			Assertions.assertThat(channel.read(ByteBuffer.allocate(100))).isEqualTo(-1);
+
+			channel.position(0);
+			ByteBuffer head = ByteBuffer.allocate(16);
+			Assertions.assertThat(channel.read(head)).isEqualTo(16);
+			Assertions.assertThat(head.array()).isEqualTo(Arrays.copyOf(data, 16));
+		}
+		fileSystem.close();
+	}
+
+	@Test
+	public void testWriteBehind() throws Exception {
+		AtomicReference<SimulatedSMBClientWrapper> wrapper = new AtomicReference<>();
+		SMBFileSystem fileSystem = newFileSystem("write-behind", Map.of(SMBFileSystemProvider.PROPERTY_WRITE_BEHIND, 2),
+				env -> wrapper.updateAndGet(
+						w -> SimulatedSMBClientWrapper.create(InMemorySMBClientWrapper.create(env), env)));
+		Path file = fileSystem.getPath("/write-behind.bin");
+		int chunkSize;
+		byte[] data;
+		try (SMBSeekableByteChannel channel = (SMBSeekableByteChannel) Files.newByteChannel(file,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			chunkSize = channel.getWriteSize();
+			data = new byte[chunkSize * 3 + chunkSize / 2];
+			new Random(3).nextBytes(data);
+			ByteBuffer source = ByteBuffer.wrap(data);
+			while (source.hasRemaining()) {
+				int length = Math.min(source.remaining(), chunkSize / 3);
+				Assertions.assertThat(channel.write(source.slice().limit(length))).isEqualTo(length);
+				source.position(source.position() + length);
+			}
+			Assertions.assertThat(channel.size()).isEqualTo(data.length);
+		}
+		Assertions.assertThat(Files.readAllBytes(file)).isEqualTo(data);
+
+		SMBSeekableByteChannel channel = (SMBSeekableByteChannel) Files.newByteChannel(file, StandardOpenOption.WRITE);
+		wrapper.get().getSimulator().injectFault(SMB2MessageCommandCode.SMB2_WRITE, NtStatus.STATUS_ACCESS_DENIED);
+		channel.write(ByteBuffer.allocate(chunkSize));
+		AccessDeniedException failure = Assertions.catchThrowableOfType(channel::size, AccessDeniedException.class);
+		Assertions.assertThat(failure).isNotNull();
+		Assertions.assertThatThrownBy(() -> channel.write(ByteBuffer.allocate(16))).isSameAs(failure);
+		Assertions.assertThatThrownBy(channel::close).isSameAs(failure);
+		Assertions.assertThat(channel.isOpen()).isFalse();
+		Assertions.assertThat(Files.readAllBytes(file)).isEqualTo(data);
+		fileSystem.close();
+	}
+
+	@Test
+	public void testFileChannel() throws Exception {
+		SMBFileSystem fileSystem = newFileSystem("file-channel", Map.of(), InMemorySMBClientWrapper::create);
+		Path file = fileSystem.getPath("/channel.txt");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.READ)) {
+			Assertions.assertThat(channel).isInstanceOf(SMBFileChannel.class);
+			Assertions.assertThat(channel.write(new ByteBuffer[] { StandardCharsets.UTF_8.encode("hello "),
+					StandardCharsets.UTF_8.encode("world") })).isEqualTo(11);
+			Assertions.assertThat(channel.position()).isEqualTo(11);
+			Assertions.assertThat(channel.size()).isEqualTo(11);
+
+			ByteBuffer word = ByteBuffer.allocate(5);
+			Assertions.assertThat(channel.read(word, 6)).isEqualTo(5);
+			Assertions.assertThat(new String(word.array(), StandardCharsets.UTF_8)).isEqualTo("world");
+			Assertions.assertThat(channel.read(ByteBuffer.allocate(5), 8)).isEqualTo(3);
+			Assertions.assertThat(channel.read(ByteBuffer.allocate(5), 11)).isEqualTo(-1);
+			Assertions.assertThat(channel.read(ByteBuffer.allocate(5), 100)).isEqualTo(-1);
+
+			ByteBuffer[] parts = { ByteBuffer.allocate(5), ByteBuffer.allocate(10) };
+			Assertions.assertThat(channel.position(0).read(parts)).isEqualTo(11);
+			Assertions.assertThat(parts[1].position()).isEqualTo(6);
+			Assertions.assertThat(channel.read(ByteBuffer.allocate(5))).isEqualTo(-1);
+
+			Assertions.assertThat(channel.truncate(5).size()).isEqualTo(5);
+			Assertions.assertThat(channel.position()).isEqualTo(5);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			Assertions.assertThat(channel.transferTo(0, 100, Channels.newChannel(out))).isEqualTo(5);
+			Assertions.assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("hello");
+			Assertions.assertThat(channel.transferFrom(
+					Channels.newChannel(new ByteArrayInputStream("!!!".getBytes(StandardCharsets.UTF_8))), 5, 10))
+					.isEqualTo(3);
+			Assertions.assertThat(channel.size()).isEqualTo(8);
+			Assertions.assertThatThrownBy(() -> channel.map(FileChannel.MapMode.READ_ONLY, 0, 8))
+					.isInstanceOf(UnsupportedOperationException.class);
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			channel.write(StandardCharsets.UTF_8.encode("?"));
+		}
+		Assertions.assertThat(Files.readString(file)).isEqualTo("hello!!!?");
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		Assertions.assertThatThrownBy(() -> channel.write(ByteBuffer.allocate(1)))
+				.isInstanceOf(NonWritableChannelException.class);
+		channel.close();
+		Assertions.assertThatThrownBy(() -> channel.read(ByteBuffer.allocate(1)))
+				.isInstanceOf(ClosedChannelException.class);
+		fileSystem.close();
+	}
+
+	@Test
+	public void testDirectoryStreamPaging() throws Exception {
+		AtomicReference<SimulatedSMBClientWrapper> wrapper = new AtomicReference<>();
+		SMBFileSystem fileSystem = newFileSystem("paging", Map.of(), env -> wrapper
+				.updateAndGet(w -> SimulatedSMBClientWrapper.create(InMemorySMBClientWrapper.create(env), env)));
+		Path directory = Files.createDirectory(fileSystem.getPath("/paging"));
+		String prefix = "x".repeat(240);
+		for (int i = 0; i < 2000; i++) {
+			Files.createFile(directory.resolve(String.format("%s%04d", prefix, i)));
+		}
+
+		SMBNetworkSimulator simulator = wrapper.get().getSimulator();
+		long queries = simulator.getRequestCount(SMB2MessageCommandCode.SMB2_QUERY_DIRECTORY);
+		AtomicLong filtered = new AtomicLong();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+				entry -> filtered.incrementAndGet() % 2 == 0)) {
+			Iterator<Path> iterator = stream.iterator();
+			Assertions.assertThat(iterator.next().getFileName().toString()).isEqualTo(prefix + "0001");
+			Assertions.assertThat(filtered.get()).isEqualTo(2);
+			Assertions.assertThat(simulator.getRequestCount(SMB2MessageCommandCode.SMB2_QUERY_DIRECTORY))
+					.isEqualTo(queries + 1);
+			Assertions.assertThatThrownBy(stream::iterator).isInstanceOf(IllegalStateException.class);
+
+			int count = 1;
+			while (iterator.hasNext()) {
+				iterator.next();
+				count++;
+			}
+			Assertions.assertThat(count).isEqualTo(1000);
+			Assertions.assertThat(filtered.get()).isEqualTo(2000);
+			Assertions.assertThat(simulator.getRequestCount(SMB2MessageCommandCode.SMB2_QUERY_DIRECTORY))
+					.isGreaterThan(queries + 1);
+		}
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			Iterator<Path> iterator = stream.iterator();
+			Assertions.assertThat(iterator.hasNext()).isTrue();
+			stream.close();
+			iterator.next();
+			Assertions.assertThat(iterator.hasNext()).isFalse();
+		}
+		fileSystem.close();
+	}
+
+	@Test
+	public void testTreeWalker() throws Exception {
+		AtomicReference<SimulatedSMBClientWrapper> wrapper = new AtomicReference<>();
+		SMBFileSystem fileSystem = newFileSystem("walker", Map.of(), env -> wrapper
+				.updateAndGet(w -> SimulatedSMBClientWrapper.create(InMemorySMBClientWrapper.create(env), env)));
+		Path start = Files.createDirectory(fileSystem.getPath("/walk"));
+		Files.write(start.resolve("a.txt"), new byte[3]);
+		Path nested = Files.createDirectories(start.resolve("d1/d2"));
+		Files.write(start.resolve("d1/b.txt"), new byte[5]);
+		Files.write(nested.resolve("c.txt"), new byte[7]);
+		Files.createDirectory(start.resolve("d3"));
+
+		SMBFileSystemProvider provider = (SMBFileSystemProvider) fileSystem.provider();
+		SMBNetworkSimulator simulator = wrapper.get().getSimulator();
+		long queries = simulator.getRequestCount(SMB2MessageCommandCode.SMB2_QUERY_INFO);
+		Map<String, Long> visited = new ConcurrentHashMap<>();
+		provider.walkFileTree(start, Integer.MAX_VALUE, 4,
+				(path, attributes) -> visited.put(path.toString(), attributes.isDirectory() ? -1 : attributes.size()));
+		Assertions.assertThat(visited).containsOnly(Map.entry("/walk", -1L), Map.entry("/walk/a.txt", 3L),
+				Map.entry("/walk/d1", -1L), Map.entry("/walk/d1/b.txt", 5L), Map.entry("/walk/d1/d2", -1L),
+				Map.entry("/walk/d1/d2/c.txt", 7L), Map.entry("/walk/d3", -1L));
+		Assertions.assertThat(simulator.getRequestCount(SMB2MessageCommandCode.SMB2_QUERY_INFO)).isEqualTo(queries + 1);
+
+		visited.clear();
+		provider.walkFileTree(start, 1, 1, (path, attributes) -> visited.put(path.toString(), 0L));
+		Assertions.assertThat(visited).containsOnlyKeys("/walk", "/walk/a.txt", "/walk/d1", "/walk/d3");
+		visited.clear();
+		provider.walkFileTree(start, 0, 1, (path, attributes) -> visited.put(path.toString(), 0L));
+		Assertions.assertThat(visited).containsOnlyKeys("/walk");
+
+		Assertions.assertThatThrownBy(() -> provider.walkFileTree(start.resolve("missing"), 1, 1, (path, a) -> {
+		})).isInstanceOf(NoSuchFileException.class);
+		Assertions.assertThatThrownBy(() -> provider.walkFileTree(start, 1, 0, (path, a) -> {
+		})).isInstanceOf(IllegalArgumentException.class);
+		fileSystem.close();
+	}
+
+	private static SMBFileSystem newFileSystem(String host, Map<String, ?> env,
+			Function<Map<String, ?>, SMBClientWrapper> clientWrapperFactory) {
+		SMBFileSystemProvider.setClientWrapperFactory(clientWrapperFactory);
+		return (SMBFileSystem) new SMBFileSystemProvider().newFileSystem(URI.create("smb://" + host + "/share/"), env);
+	}
+
 }
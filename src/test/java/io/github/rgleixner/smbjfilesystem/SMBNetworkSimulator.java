@@ -0,0 +1,190 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.hierynomus.mserref.NtStatus;
+import com.hierynomus.mssmb2.SMB2MessageCommandCode;
+import com.hierynomus.mssmb2.SMBApiException;
+import com.hierynomus.smbj.share.SimulatedDiskShare;
+
+public final class SMBNetworkSimulator implements SimulatedDiskShare.Network {
+
+	public static final String PROPERTY_RTT = "smbj-filesystem.simulator.rtt-micros";
+
+	public static final String PROPERTY_JITTER = "smbj-filesystem.simulator.jitter-micros";
+
+	public static final String PROPERTY_BANDWIDTH = "smbj-filesystem.simulator.bandwidth";
+
+	public static final String PROPERTY_CREDITS = "smbj-filesystem.simulator.credits";
+
+	public static final String PROPERTY_FAULT_RATE = "smbj-filesystem.simulator.fault-rate";
+
+	public static final String PROPERTY_FAULT_STATUS = "smbj-filesystem.simulator.fault-status";
+
+	private static final int CREDIT_SIZE = 64 * 1024;
+
+	private static final class Fault {
+
+		private final SMB2MessageCommandCode command;
+
+		private final NtStatus status;
+
+		Fault(SMB2MessageCommandCode command, NtStatus status) {
+			this.command = command;
+			this.status = status;
+		}
+
+	}
+
+	private final long rttNanos;
+
+	private final long jitterNanos;
+
+	private final long bandwidth;
+
+	private final int credits;
+
+	private final double faultRate;
+
+	private final NtStatus faultStatus;
+
+	private final Semaphore availableCredits;
+
+	private final Queue<Fault> scheduledFaults = new ConcurrentLinkedQueue<>();
+
+	private final Map<SMB2MessageCommandCode, LongAdder> requests = new EnumMap<>(SMB2MessageCommandCode.class);
+
+	private final LongAdder faults = new LongAdder();
+
+	private long uplinkAvailable;
+
+	private long downlinkAvailable;
+
+	public SMBNetworkSimulator(long rttMicros, long jitterMicros, long bandwidth, int credits, double faultRate,
+			NtStatus faultStatus) {
+		if (rttMicros < 0 || jitterMicros < 0 || bandwidth < 0) {
+			throw new IllegalArgumentException("The round trip time, jitter and bandwidth must not be negative.");
+		}
+		if (credits < 1) {
+			throw new IllegalArgumentException("The credits must be at least 1.");
+		}
+		if (faultRate < 0 || faultRate > 1) {
+			throw new IllegalArgumentException("The fault rate must be between 0 and 1.");
+		}
+		this.rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+		this.jitterNanos = TimeUnit.MICROSECONDS.toNanos(jitterMicros);
+		this.bandwidth = bandwidth;
+		this.credits = credits;
+		this.faultRate = faultRate;
+		this.faultStatus = faultStatus;
+		this.availableCredits = new Semaphore(credits, true);
+		for (SMB2MessageCommandCode command : SMB2MessageCommandCode.values()) {
+			this.requests.put(command, new LongAdder());
+		}
+	}
+
+	public static SMBNetworkSimulator create(Map<String, ?> env) {
+		Object faultRate = env.get(PROPERTY_FAULT_RATE);
+		Object faultStatus = env.get(PROPERTY_FAULT_STATUS);
+		return new SMBNetworkSimulator(SMBFileSystemProvider.getIntProperty(env, PROPERTY_RTT, 0),
+				SMBFileSystemProvider.getIntProperty(env, PROPERTY_JITTER, 0),
+				SMBFileSystemProvider.getIntProperty(env, PROPERTY_BANDWIDTH, 0),
+				SMBFileSystemProvider.getIntProperty(env, PROPERTY_CREDITS, 512),
+				faultRate == null ? 0 : Double.parseDouble(faultRate.toString().trim()),
+				faultStatus == null ? NtStatus.STATUS_IO_TIMEOUT : NtStatus.valueOf(faultStatus.toString().trim()));
+	}
+
+	public void injectFault(SMB2MessageCommandCode command, NtStatus status) {
+		this.scheduledFaults.add(new Fault(command, status));
+	}
+
+	public long getRequestCount(SMB2MessageCommandCode command) {
+		return this.requests.get(command).sum();
+	}
+
+	public long getRequestCount() {
+		return this.requests.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	public long getFaultCount() {
+		return this.faults.sum();
+	}
+
+	@Override
+	public void request(SMB2MessageCommandCode command, long bytes) {
+		int cost = (int) Math.min(this.credits, Math.max(1, (bytes + CREDIT_SIZE - 1) / CREDIT_SIZE));
+		this.availableCredits.acquireUninterruptibly(cost);
+		try {
+			this.requests.get(command).increment();
+			long deadline = transmit(command == SMB2MessageCommandCode.SMB2_WRITE, bytes) + this.rttNanos + jitter();
+			while (true) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					break;
+				}
+				LockSupport.parkNanos(remaining);
+			}
+			NtStatus status = nextFault(command);
+			if (status != null) {
+				this.faults.increment();
+				throw new SMBApiException(status.getValue(), command, null);
+			}
+		} finally {
+			this.availableCredits.release(cost);
+		}
+	}
+
+	private long transmit(boolean upload, long bytes) {
+		long now = System.nanoTime();
+		if (this.bandwidth == 0 || bytes == 0) {
+			return now;
+		}
+		long duration = bytes * TimeUnit.SECONDS.toNanos(1) / this.bandwidth;
+		synchronized (this) {
+			long available = upload ? this.uplinkAvailable : this.downlinkAvailable;
+			long end = (now - available > 0 ? now : available) + duration;
+			if (upload) {
+				this.uplinkAvailable = end;
+			} else {
+				this.downlinkAvailable = end;
+			}
+			return end;
+		}
+	}
+
+	private long jitter() {
+		if (this.jitterNanos == 0) {
+			return 0;
+		}
+		return Math.max(-this.rttNanos, ThreadLocalRandom.current().nextLong(-this.jitterNanos, this.jitterNanos + 1));
+	}
+
+	private NtStatus nextFault(SMB2MessageCommandCode command) {
+		for (Fault fault : this.scheduledFaults) {
+			if ((fault.command == null || fault.command == command) && this.scheduledFaults.remove(fault)) {
+				return fault.status;
+			}
+		}
+		if (this.faultRate > 0 && command != SMB2MessageCommandCode.SMB2_CLOSE
+				&& ThreadLocalRandom.current().nextDouble() < this.faultRate) {
+			return this.faultStatus;
+		}
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "SMBNetworkSimulator [rttNanos=" + rttNanos + ", jitterNanos=" + jitterNanos + ", bandwidth="
+				+ bandwidth + ", credits=" + credits + ", faultRate=" + faultRate + ", faultStatus=" + faultStatus
+				+ "]";
+	}
+
+}
@@ -0,0 +1,73 @@
+package io.github.rgleixner.smbjfilesystem;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.hierynomus.smbj.share.DiskShare;
+import com.hierynomus.smbj.share.SimulatedDiskShare;
+
+public final class SimulatedSMBClientWrapper implements SMBClientWrapper {
+
+	private final SMBClientWrapper delegate;
+
+	private final SMBNetworkSimulator simulator;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "smb-simulator");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private SimulatedDiskShare share;
+
+	public SimulatedSMBClientWrapper(SMBClientWrapper delegate, SMBNetworkSimulator simulator) {
+		this.delegate = delegate;
+		this.simulator = simulator;
+	}
+
+	public static SimulatedSMBClientWrapper create(SMBClientWrapper delegate, Map<String, ?> env) {
+		return new SimulatedSMBClientWrapper(delegate, SMBNetworkSimulator.create(env));
+	}
+
+	public SMBNetworkSimulator getSimulator() {
+		return simulator;
+	}
+
+	@Override
+	public SMBShareWrapper getShare() throws IOException {
+		SMBShareWrapper shareWrapper = delegate.getShare();
+		DiskShare diskShare = simulate(shareWrapper.getSmbShare());
+		return new SMBShareWrapper() {
+
+			@Override
+			public DiskShare getSmbShare() {
+				return diskShare;
+			}
+
+			@Override
+			public void close() throws IOException {
+				shareWrapper.close();
+			}
+
+		};
+	}
+
+	private synchronized DiskShare simulate(DiskShare diskShare) {
+		if (share == null || share.getDelegate() != diskShare) {
+			share = new SimulatedDiskShare(diskShare, simulator, executor);
+		}
+		return share;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			delegate.close();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}